@@ -0,0 +1,41 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.mappers.ApplicationMapper;
+import com.enginious.userservice.mappers.ApplicationMapperImpl;
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.enums.Role;
+import com.enginious.userservice.service.application.dto.UpdateApplicationRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ApplicationMapperBenchmark {
+
+    private final ApplicationMapper applicationMapper = new ApplicationMapperImpl();
+
+    private final UpdateApplicationRequest request = UpdateApplicationRequest
+            .builder()
+            .name("UserService")
+            .role(Role.USER)
+            .build();
+
+    private final Application application = Application
+            .builder()
+            .name("application")
+            .uuid("00000000-0000-0000-0000-000000000000")
+            .secret("secret")
+            .role(Role.ADMIN)
+            .build();
+
+    @Benchmark
+    public Application update() {
+        applicationMapper.update(request, application);
+        return application;
+    }
+}
@@ -0,0 +1,93 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.enums.Role;
+import com.enginious.userservice.service.application.ApplicationService;
+import com.enginious.userservice.service.application.dto.CreateApplicationRequest;
+import com.enginious.userservice.service.application.dto.UpdateApplicationRequest;
+import com.enginious.userservice.service.organization.OrganizationService;
+import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApplicationServiceBenchmark {
+
+    private static final int APPLICATIONS = 20;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private ApplicationService applicationService;
+    private long organizationId;
+    private long applicationId;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = BenchmarkContext.start();
+        applicationService = context.getBean(ApplicationService.class);
+        organizationId = context
+                .getBean(OrganizationService.class)
+                .createOrganization(CreateOrganizationRequest.builder().name("enginious").vatNumber("123456789").build())
+                .getId();
+        for (int i = 0; i < APPLICATIONS; i++) {
+            applicationId = applicationService.createApplication(nextCreateRequest(), organizationId).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private CreateApplicationRequest nextCreateRequest() {
+        return CreateApplicationRequest
+                .builder()
+                .name("application" + sequence.incrementAndGet())
+                .role(Role.USER)
+                .build();
+    }
+
+    @Benchmark
+    public Application createApplication() throws Exception {
+        return applicationService.createApplication(nextCreateRequest(), organizationId);
+    }
+
+    @Benchmark
+    public Application readApplication() throws Exception {
+        return applicationService.readApplication(applicationId, organizationId);
+    }
+
+    @Benchmark
+    public List<Application> readApplications() throws Exception {
+        return applicationService.readApplication(organizationId);
+    }
+
+    @Benchmark
+    public Application updateApplication() throws Exception {
+        return applicationService.updateApplication(
+                UpdateApplicationRequest
+                        .builder()
+                        .name("application" + sequence.incrementAndGet())
+                        .role(Role.ADMIN)
+                        .build(),
+                applicationId,
+                organizationId,
+                null
+        );
+    }
+
+    @Benchmark
+    public void createAndDeleteApplication() throws Exception {
+        applicationService.deleteApplication(applicationService.createApplication(nextCreateRequest(), organizationId).getId(), organizationId);
+    }
+}
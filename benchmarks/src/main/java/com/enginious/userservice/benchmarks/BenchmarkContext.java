@@ -0,0 +1,20 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.UserServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the full application against an in-memory H2 database in MySQL mode, using the {@code benchmark} profile.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        SpringApplication app = new SpringApplication(UserServiceApplication.class);
+        app.setAdditionalProfiles("benchmark");
+        return app.run();
+    }
+}
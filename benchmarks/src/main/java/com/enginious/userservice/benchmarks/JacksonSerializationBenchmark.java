@@ -0,0 +1,72 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.enums.Role;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the entities returned by the controllers, configured like the Spring Boot {@link ObjectMapper}.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JacksonSerializationBenchmark {
+
+    @Param({"0", "10", "100"})
+    private int applications;
+
+    private ObjectMapper objectMapper;
+    private Organization organization;
+    private Application application;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        organization = Organization
+                .builder()
+                .name("enginious")
+                .vatNumber("123456789")
+                .build();
+        for (int i = 0; i < applications; i++) {
+            organization.getApplications().add(Application
+                    .builder()
+                    .organization(organization)
+                    .name("application" + i)
+                    .uuid(UUID.randomUUID().toString())
+                    .secret("secret")
+                    .role(Role.USER)
+                    .build());
+        }
+        application = Application
+                .builder()
+                .organization(organization)
+                .name("application")
+                .uuid(UUID.randomUUID().toString())
+                .secret("secret")
+                .role(Role.ADMIN)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeOrganization() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(organization);
+    }
+
+    @Benchmark
+    public byte[] serializeApplication() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(application);
+    }
+}
@@ -0,0 +1,86 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.service.organization.OrganizationService;
+import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import com.enginious.userservice.service.organization.dto.UpdateOrganizationRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrganizationServiceBenchmark {
+
+    private static final int ORGANIZATIONS = 100;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private OrganizationService organizationService;
+    private long organizationId;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = BenchmarkContext.start();
+        organizationService = context.getBean(OrganizationService.class);
+        for (int i = 0; i < ORGANIZATIONS; i++) {
+            organizationId = organizationService.createOrganization(nextCreateRequest()).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private CreateOrganizationRequest nextCreateRequest() {
+        long n = sequence.incrementAndGet();
+        return CreateOrganizationRequest
+                .builder()
+                .name("organization" + n)
+                .vatNumber(String.format("%011d", n))
+                .build();
+    }
+
+    @Benchmark
+    public Organization createOrganization() throws Exception {
+        return organizationService.createOrganization(nextCreateRequest());
+    }
+
+    @Benchmark
+    public Organization readOrganization() throws Exception {
+        return organizationService.readOrganization(organizationId);
+    }
+
+    @Benchmark
+    public List<Organization> readOrganizations() throws Exception {
+        return organizationService.readOrganization();
+    }
+
+    @Benchmark
+    public Organization updateOrganization() throws Exception {
+        long n = sequence.incrementAndGet();
+        return organizationService.updateOrganization(
+                UpdateOrganizationRequest
+                        .builder()
+                        .name("organization" + n)
+                        .vatNumber(String.format("%011d", n))
+                        .build(),
+                organizationId,
+                null
+        );
+    }
+
+    @Benchmark
+    public void createAndDeleteOrganization() throws Exception {
+        organizationService.deleteOrganization(organizationService.createOrganization(nextCreateRequest()).getId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.enums.Role;
+import com.enginious.userservice.service.application.ApplicationService;
+import com.enginious.userservice.service.application.dto.CreateApplicationRequest;
+import com.enginious.userservice.service.organization.OrganizationService;
+import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+
+/**
+ * Loads the organization list the way {@code GET /organization} does, in a read-write transaction (snapshots of every
+ * loaded entity, dirty checked and flushed on commit) and in a read-only one ({@code FlushMode.MANUAL}, entities
+ * loaded read-only). Run with {@code -prof gc} to compare the allocations per operation.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadOnlyTransactionBenchmark {
+
+    private static final int ORGANIZATIONS = 50;
+    private static final int APPLICATIONS = 5;
+
+    @Param({"false", "true"})
+    private boolean readOnly;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = BenchmarkContext.start();
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(readOnly);
+        OrganizationService organizationService = context.getBean(OrganizationService.class);
+        ApplicationService applicationService = context.getBean(ApplicationService.class);
+        for (int i = 0; i < ORGANIZATIONS; i++) {
+            long organizationId = organizationService
+                    .createOrganization(CreateOrganizationRequest.builder().name("organization" + i).vatNumber(String.format("%011d", i)).build())
+                    .getId();
+            for (int j = 0; j < APPLICATIONS; j++) {
+                applicationService.createApplication(CreateApplicationRequest.builder().name("application" + j).role(Role.USER).build(), organizationId);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Organization> readOrganizations() {
+        return transactionTemplate.execute(status -> {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            return entityManager
+                    .createQuery("select distinct o from Organization o left join fetch o.applications order by o.id asc", Organization.class)
+                    .setHint(READ_ONLY, readOnly)
+                    .getResultList();
+        });
+    }
+}
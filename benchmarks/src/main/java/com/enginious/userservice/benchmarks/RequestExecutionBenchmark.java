@@ -0,0 +1,84 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.config.VirtualThreads;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of requests that each hold a pooled connection for a database round trip of {@code roundTripMillis},
+ * dispatched either on a fixed pool of {@code threads} platform threads, standing in for the Tomcat pool, or on a
+ * virtual thread per request. Platform threads cap throughput at about {@code threads / roundTrip} whatever the
+ * connection pool size, virtual threads at about {@code connections / roundTrip}. The round trip is spent sleeping
+ * outside the driver, as a network wait would, since H2 itself runs statements inside {@code synchronized} blocks that
+ * pin virtual threads to their carrier. The {@code virtual} runs need a Java 21 runtime.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RequestExecutionBenchmark {
+
+    private static final int BURST = 512;
+
+    @Param({"platform", "virtual"})
+    private String executor;
+
+    @Param("16")
+    private int threads;
+
+    @Param({"32", "64"})
+    private int connections;
+
+    @Param("2")
+    private long roundTripMillis;
+
+    private HikariDataSource dataSource;
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:requests;MODE=MYSQL");
+        config.setMaximumPoolSize(connections);
+        config.setMinimumIdle(connections);
+        dataSource = new HikariDataSource(config);
+        executorService = "virtual".equals(executor)
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BURST);
+        for (int i = 0; i < BURST; i++) {
+            executorService.execute(() -> {
+                try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                    statement.execute("select 1");
+                    Thread.sleep(roundTripMillis);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,49 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.security.TokenProperties;
+import com.enginious.userservice.security.TokenRevocationList;
+import com.enginious.userservice.security.TokenService;
+import com.enginious.userservice.security.dto.TokenClaims;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and verifying a bearer token, to compare with {@link PasswordEncoderBenchmark}.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenServiceBenchmark {
+
+    private TokenService tokenService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TokenProperties tokenProperties = new TokenProperties();
+        tokenProperties.setKeys(Collections.singletonMap("k1", Base64.getEncoder().encodeToString(new byte[32])));
+        tokenProperties.setActiveKey("k1");
+        tokenService = new TokenService(tokenProperties, new TokenRevocationList(), new ObjectMapper());
+        token = issue();
+    }
+
+    @Benchmark
+    public String issue() {
+        return tokenService
+                .issue(TokenClaims.Type.user, "1", 1L, 1L, Arrays.asList("reader", "writer"))
+                .getAccessToken();
+    }
+
+    @Benchmark
+    public TokenClaims verify() {
+        return tokenService.verify(token);
+    }
+}
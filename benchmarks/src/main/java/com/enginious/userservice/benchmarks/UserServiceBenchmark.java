@@ -0,0 +1,81 @@
+package com.enginious.userservice.benchmarks;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.User;
+import com.enginious.userservice.model.enums.Role;
+import com.enginious.userservice.service.application.ApplicationService;
+import com.enginious.userservice.service.application.dto.CreateApplicationRequest;
+import com.enginious.userservice.service.organization.OrganizationService;
+import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import com.enginious.userservice.service.user.UserService;
+import com.enginious.userservice.service.user.dto.CreateUserRequest;
+import com.enginious.userservice.service.user.dto.LoginRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained login throughput with one thread per available processor, using the BCrypt cost calibrated at startup.
+ * Divide the score by the number of cores for logins per second per core. Role checks are measured the same way,
+ * answered from the cached role bitset of the user.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserServiceBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long organizationId;
+    private long applicationId;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = BenchmarkContext.start();
+        userService = context.getBean(UserService.class);
+        organizationId = context
+                .getBean(OrganizationService.class)
+                .createOrganization(CreateOrganizationRequest.builder().name("enginious").vatNumber("123456789").build())
+                .getId();
+        Application application = context
+                .getBean(ApplicationService.class)
+                .createApplication(CreateApplicationRequest.builder().name("application").role(Role.USER).build(), organizationId);
+        applicationId = application.getId();
+        userId = userService.createUser(
+                CreateUserRequest
+                        .builder()
+                        .username("user")
+                        .password(PASSWORD)
+                        .enabled(true)
+                        .roles(new HashSet<>(Arrays.asList("reader", "writer")))
+                        .build(),
+                applicationId,
+                organizationId
+        ).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User login() throws Exception {
+        return userService.login(LoginRequest.builder().username("user").password(PASSWORD).build(), applicationId, organizationId);
+    }
+
+    @Benchmark
+    public boolean hasRole() throws Exception {
+        return userService.hasRole("writer", userId, applicationId, organizationId);
+    }
+}
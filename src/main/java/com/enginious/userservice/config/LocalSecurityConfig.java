@@ -1,17 +1,50 @@
 package com.enginious.userservice.config;
 
-import org.springframework.context.annotation.Bean;
+import com.enginious.userservice.security.ApplicationAuthenticationProvider;
+import com.enginious.userservice.security.BearerTokenAuthenticationFilter;
+import com.enginious.userservice.security.TokenService;
+import com.enginious.userservice.security.VerifiedCredentialsCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
+/**
+ * Admin credentials reach every endpoint but user login. Application credentials and application tokens only reach
+ * their own application and its users, everything else, organizations and application lists included, is admin only.
+ * User login, {@code _login} and {@code _token}, is reserved to the application the users belong to. User tokens reach
+ * nothing but {@code /token}.
+ */
 @Configuration
 public class LocalSecurityConfig extends WebSecurityConfigurerAdapter {
 
+    private final ApplicationAuthenticationProvider applicationAuthenticationProvider;
+    private final VerifiedCredentialsCache verifiedCredentialsCache;
+    private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+
+    @Autowired
+    public LocalSecurityConfig(ApplicationAuthenticationProvider applicationAuthenticationProvider,
+                               VerifiedCredentialsCache verifiedCredentialsCache,
+                               PasswordEncoder passwordEncoder,
+                               TokenService tokenService) {
+        this.applicationAuthenticationProvider = applicationAuthenticationProvider;
+        this.verifiedCredentialsCache = verifiedCredentialsCache;
+        this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
+    }
+
     @Override
     protected void configure(HttpSecurity httpSecurity) throws Exception {
 
@@ -22,22 +55,50 @@ public class LocalSecurityConfig extends WebSecurityConfigurerAdapter {
                 .csrf().disable()
                 .authorizeRequests()
                 .antMatchers("/h2-console/**").permitAll()
-                .anyRequest().authenticated()
+                .antMatchers("/actuator/health").permitAll()
+                .antMatchers("/actuator/**").hasRole("ADMIN")
+                .antMatchers("/token").authenticated()
+                .antMatchers(HttpMethod.POST,
+                        "/organization/{organizationId}/application/{applicationId}/user/_login",
+                        "/organization/{organizationId}/application/{applicationId}/user/_token")
+                .access("@applicationAccess.isApplication(authentication, #organizationId, #applicationId)")
+                .antMatchers("/organization/{organizationId}/application/{applicationId}/**")
+                .access("hasRole('ADMIN') or @applicationAccess.isApplication(authentication, #organizationId, #applicationId)")
+                .anyRequest().hasRole("ADMIN")
                 .and()
+                .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .httpBasic();
     }
 
     @Override
     public void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth
-                .inMemoryAuthentication()
-                .withUser("admin")
-                .password(passwordEncoder().encode("admin"))
-                .authorities("ROLE_ADMIN");
+        DaoAuthenticationProvider adminAuthenticationProvider = new DaoAuthenticationProvider();
+        adminAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        adminAuthenticationProvider.setUserDetailsService(new InMemoryUserDetailsManager(User
+                .withUsername("admin")
+                .password(passwordEncoder.encode("admin"))
+                .authorities("ROLE_ADMIN")
+                .build()));
+        auth.authenticationProvider(applicationAuthenticationProvider);
+        auth.authenticationProvider(skipApplications(verifiedCredentialsCache.wrap(adminAuthenticationProvider)));
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    /**
+     * Keeps application credentials away from the given provider: a failed application authentication would otherwise
+     * cost a BCrypt verification on the hashing pool, run by {@link DaoAuthenticationProvider} against unknown users
+     * to mitigate timing attacks.
+     */
+    private static AuthenticationProvider skipApplications(AuthenticationProvider delegate) {
+        return new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+                return ApplicationAuthenticationProvider.handles(authentication.getName()) ? null : delegate.authenticate(authentication);
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return delegate.supports(authentication);
+            }
+        };
     }
 }
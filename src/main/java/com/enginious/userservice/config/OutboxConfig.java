@@ -0,0 +1,33 @@
+package com.enginious.userservice.config;
+
+import com.enginious.userservice.service.outbox.FileOutboxSink;
+import com.enginious.userservice.service.outbox.LogOutboxSink;
+import com.enginious.userservice.service.outbox.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Picks the {@link OutboxSink} from {@code outbox.sink.type}: {@code file} appends to {@code outbox.sink.file.path},
+ * anything else logs. Declaring an {@link OutboxSink} bean replaces both.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "outbox.sink.type", havingValue = "file")
+    public OutboxSink fileOutboxSink(ObjectMapper objectMapper, @Value("${outbox.sink.file.path}") String path) {
+        return new FileOutboxSink(objectMapper, Paths.get(path));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink logOutboxSink(ObjectMapper objectMapper) {
+        return new LogOutboxSink(objectMapper);
+    }
+}
@@ -0,0 +1,32 @@
+package com.enginious.userservice.config;
+
+import com.enginious.userservice.security.AsyncPasswordEncoder;
+import com.enginious.userservice.security.BCryptCostCalibrator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    /**
+     * A strength of 0 calibrates the BCrypt cost at startup against {@code security.password.target-latency};
+     * a pool size of 0 uses one thread per available processor.
+     */
+    @Bean
+    public AsyncPasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:0}") int strength,
+                                                @Value("${security.password.minimum-strength:10}") int minimumStrength,
+                                                @Value("${security.password.target-latency:PT0.05S}") Duration targetLatency,
+                                                @Value("${security.password.pool-size:0}") int poolSize,
+                                                @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                                                @Value("${security.password.timeout:PT2S}") Duration timeout) {
+        return new AsyncPasswordEncoder(
+                new BCryptPasswordEncoder(strength > 0 ? strength : BCryptCostCalibrator.calibrate(targetLatency, minimumStrength)),
+                poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors(),
+                queueCapacity,
+                timeout);
+    }
+}
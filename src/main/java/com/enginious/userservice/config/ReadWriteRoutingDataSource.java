@@ -0,0 +1,87 @@
+package com.enginious.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections of the replica pool inside read-only transactions and of the primary pool everywhere else.
+ * The read-only flag of a Spring transaction is only published once the transaction has begun, so the physical
+ * connection is fetched lazily, on the first statement. Owns both pools and closes them on shutdown.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements MeterBinder, DisposableBean {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, HikariDataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                    replicaConnections.increment();
+                    return REPLICA;
+                }
+                primaryConnections.increment();
+                return PRIMARY;
+            }
+        };
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, PRIMARY, primary, primaryConnections);
+        bind(registry, REPLICA, replica, replicaConnections);
+    }
+
+    @Override
+    public void destroy() {
+        replica.close();
+        primary.close();
+    }
+
+    private static void bind(MeterRegistry registry, String pool, HikariDataSource dataSource, LongAdder connections) {
+        FunctionCounter
+                .builder("datasource.connections.acquired", connections, LongAdder::sum)
+                .tag("pool", pool)
+                .description("Connections handed out by the pool through the read/write router")
+                .register(registry);
+        Gauge
+                .builder("datasource.connections.active", dataSource, d -> mxBean(d) == null ? 0 : mxBean(d).getActiveConnections())
+                .tag("pool", pool)
+                .register(registry);
+        Gauge
+                .builder("datasource.connections.pending", dataSource, d -> mxBean(d) == null ? 0 : mxBean(d).getThreadsAwaitingConnection())
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    private static HikariPoolMXBean mxBean(HikariDataSource dataSource) {
+        return dataSource.getHikariPoolMXBean();
+    }
+}
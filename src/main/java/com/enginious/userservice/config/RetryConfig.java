@@ -0,0 +1,39 @@
+package com.enginious.userservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class RetryConfig {
+
+    /**
+     * Retries a read-modify-write that lost an optimistic locking race, with a randomized exponential back-off so
+     * that competing writers spread out. Every attempt must run in a transaction of its own and read the current
+     * state again.
+     */
+    @Bean
+    public RetryTemplate conflictRetryTemplate(@Value("${retry.conflict.max-attempts:5}") int maxAttempts,
+                                               @Value("${retry.conflict.initial-interval:PT0.01S}") Duration initialInterval,
+                                               @Value("${retry.conflict.max-interval:PT0.2S}") Duration maxInterval) {
+        Map<Class<? extends Throwable>, Boolean> retryable = new HashMap<>();
+        retryable.put(OptimisticLockingFailureException.class, true);
+        retryable.put(OptimisticLockException.class, true);
+        ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+        backOffPolicy.setInitialInterval(initialInterval.toMillis());
+        backOffPolicy.setMaxInterval(maxInterval.toMillis());
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(maxAttempts, retryable, true));
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        return retryTemplate;
+    }
+}
@@ -0,0 +1,31 @@
+package com.enginious.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Splits traffic between the primary pool, configured by the usual {@code spring.datasource.*} properties, and a
+ * replica pool configured by {@code datasource.replica.*}, whenever {@code datasource.replica.jdbc-url} is set.
+ * Read-only transactions run on the replica and may observe replication lag, everything else runs on the primary.
+ * The pools are not beans of their own, so that the application still has a single {@code DataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.jdbc-url")
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        HikariDataSource replica = new HikariDataSource();
+        binder.bind("datasource.replica", Bindable.ofInstance(replica));
+        return new ReadWriteRoutingDataSource(primary, replica);
+    }
+}
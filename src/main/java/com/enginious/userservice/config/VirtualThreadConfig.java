@@ -0,0 +1,34 @@
+package com.enginious.userservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in execution mode running every request on a virtual thread of its own instead of a thread of the bounded
+ * Tomcat pool, so that requests blocked on JDBC no longer exhaust {@code server.tomcat.max-threads}: concurrency is
+ * bounded by the connection pool, {@code spring.datasource.hikari.maximum-pool-size}, instead. Password hashing keeps
+ * its own bounded pool. Enabled by {@code spring.threads.virtual.enabled=true}, the property later Spring Boot lines
+ * use for the same purpose, and requires a Java 21 runtime: startup fails otherwise.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadRequestExecutor() {
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        log.info("serving requests on virtual threads");
+        return executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+    }
+}
@@ -0,0 +1,30 @@
+package com.enginious.userservice.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The project is compiled for Java 11, so virtual threads are reached by reflection and only exist when running on
+ * a Java 21 or newer runtime.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns an executor starting a new virtual thread for every task.
+     *
+     * @throws IllegalStateException when the runtime has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(String.format("virtual threads require a Java 21 runtime, running on [%s]", Runtime.version()), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("failed to create virtual thread executor", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.enginious.userservice.controller;
 
 import com.enginious.userservice.model.Application;
+import com.enginious.userservice.service.dto.BulkReport;
 import com.enginious.userservice.service.application.ApplicationService;
 import com.enginious.userservice.service.application.dto.CreateApplicationRequest;
 import com.enginious.userservice.service.application.dto.UpdateApplicationRequest;
@@ -8,14 +9,22 @@ import com.enginious.userservice.service.application.exceptions.CreateApplicatio
 import com.enginious.userservice.service.application.exceptions.DeleteApplicationException;
 import com.enginious.userservice.service.application.exceptions.ReadApplicationException;
 import com.enginious.userservice.service.application.exceptions.UpdateApplicationException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -23,16 +32,17 @@ import java.util.List;
 public class ApplicationController extends BaseController {
 
     private final ApplicationService applicationService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public ApplicationController(ApplicationService applicationService) {
+    public ApplicationController(ApplicationService applicationService, ObjectMapper objectMapper) {
         this.applicationService = applicationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
     public ResponseEntity<?> createApplication(@PathVariable Long organizationId, @Valid @RequestBody CreateApplicationRequest request) throws Throwable {
         try {
-            log.info(executing());
             return ResponseEntity.created(
                     ServletUriComponentsBuilder
                             .fromCurrentRequest()
@@ -45,39 +55,91 @@ public class ApplicationController extends BaseController {
                             .toUri()
             ).build();
         } catch (CreateApplicationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
 
+    /**
+     * Accepts either a JSON array or newline delimited JSON, both read incrementally from the request body.
+     */
+    @PostMapping(path = "/_bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public BulkReport createApplication(@PathVariable Long organizationId, InputStream body) throws Throwable {
+        try (MappingIterator<CreateApplicationRequest> requests = objectMapper.readerFor(CreateApplicationRequest.class).readValues(body)) {
+            return applicationService.createApplication(requests, organizationId);
+        } catch (CreateApplicationException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Answers with a strong ETag derived from the application version. The version is only looked up when an
+     * {@code If-None-Match} header is present, and when it matches a 304 is sent without loading or serializing the
+     * application.
+     */
     @GetMapping("/{applicationId}")
-    public Application readApplication(@PathVariable Long organizationId, @PathVariable Long applicationId) throws Throwable {
+    public ResponseEntity<Application> readApplication(@PathVariable Long organizationId, @PathVariable Long applicationId, WebRequest webRequest) throws Throwable {
         try {
-            log.info(executing());
-            return applicationService.readApplication(applicationId, organizationId);
+            if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && applicationService
+                    .readApplicationVersion(applicationId, organizationId)
+                    .map(version -> webRequest.checkNotModified(String.valueOf(version)))
+                    .orElse(false)) {
+                return null;
+            }
+            Application application = applicationService.readApplication(applicationId, organizationId);
+            return ResponseEntity.ok().eTag(String.valueOf(application.getVersion())).body(application);
         } catch (ReadApplicationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
 
+    /**
+     * Answers with a strong ETag derived from the organization version, which every application write increments.
+     */
     @GetMapping
-    public List<Application> readApplication(@PathVariable Long organizationId) throws Throwable {
+    public ResponseEntity<List<Application>> readApplication(@PathVariable Long organizationId, WebRequest webRequest) throws Throwable {
+        try {
+            Optional<Long> version = applicationService.readApplicationVersion(organizationId);
+            if (version.isPresent() && webRequest.checkNotModified(String.valueOf(version.get()))) {
+                return null;
+            }
+            List<Application> applications = applicationService.readApplication(organizationId);
+            return version
+                    .map(v -> ResponseEntity.ok().eTag(String.valueOf(v)).body(applications))
+                    .orElseGet(() -> ResponseEntity.ok(applications));
+        } catch (ReadApplicationException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Answers asynchronously, the request thread is released as soon as the snapshot is sent.
+     */
+    @GetMapping(path = "/_watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchApplication(@PathVariable Long organizationId) throws Throwable {
         try {
-            return applicationService.readApplication(organizationId);
+            return applicationService.watchApplication(organizationId);
         } catch (ReadApplicationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
 
+    /**
+     * With an {@code If-Match} header the update only applies to that version of the application, otherwise a 412
+     * is returned. The ETag of the updated application is sent back.
+     */
     @PutMapping("/{applicationId}")
-    public void updateApplication(@PathVariable Long organizationId, @PathVariable Long applicationId, @Valid @RequestBody UpdateApplicationRequest request) throws Throwable {
+    public ResponseEntity<Void> updateApplication(@PathVariable Long organizationId, @PathVariable Long applicationId, @Valid @RequestBody UpdateApplicationRequest request, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws Throwable {
+        Long expectedVersion = ifMatchVersion(ifMatch);
         try {
-            log.info(executing());
-            applicationService.updateApplication(request, applicationId, organizationId);
+            Application application = applicationService.updateApplication(request, applicationId, organizationId, expectedVersion);
+            return ResponseEntity.ok().eTag(String.valueOf(application.getVersion())).build();
         } catch (UpdateApplicationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
@@ -85,10 +147,9 @@ public class ApplicationController extends BaseController {
     @DeleteMapping("/{applicationId}")
     public void deleteApplication(@PathVariable Long organizationId, @PathVariable Long applicationId) throws Throwable {
         try {
-            log.info(executing());
             applicationService.deleteApplication(applicationId, organizationId);
         } catch (DeleteApplicationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
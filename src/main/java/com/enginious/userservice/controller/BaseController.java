@@ -1,36 +1,27 @@
 package com.enginious.userservice.controller;
 
-import org.springframework.web.context.request.RequestAttributes;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-
-import javax.servlet.http.HttpServletRequest;
+import com.enginious.userservice.service.exceptions.InvalidRequestException;
 
 public class BaseController {
 
-    protected HttpServletRequest getCurrentHttpRequest() {
-        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
-        if (requestAttributes instanceof ServletRequestAttributes) {
-            return ((ServletRequestAttributes) requestAttributes).getRequest();
-        }
-        throw new RuntimeException("Not called in the context of an HTTP request");
-    }
-
-    protected String getCurrentHttpRequestUrl() {
-        return getCurrentHttpRequest().getRequestURI();
-    }
-
-    protected String getCurrentHttpRequestMethod() {
-        return getCurrentHttpRequest().getMethod();
-    }
-
-    protected String error() {
-        HttpServletRequest request = getCurrentHttpRequest();
-        return String.format("error while executing request [%s] {path: %s}:", request.getMethod(), request.getRequestURI());
-    }
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
 
-    protected String executing() {
-        HttpServletRequest request = getCurrentHttpRequest();
-        return String.format("executing request [%s] {path: %s}:", request.getMethod(), request.getRequestURI());
+    /**
+     * Reads the version out of an {@code If-Match} header carrying a single strong ETag, as returned by a previous
+     * read. An absent header, or {@code *}, yields {@code null}: the write is not conditional.
+     */
+    protected static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new InvalidRequestException(String.format("invalid If-Match header [%s]", ifMatch));
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException(String.format("invalid If-Match header [%s]", ifMatch), e);
+        }
     }
 }
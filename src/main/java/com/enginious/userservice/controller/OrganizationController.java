@@ -1,20 +1,32 @@
 package com.enginious.userservice.controller;
 
 import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.service.dto.BulkReport;
 import com.enginious.userservice.service.organization.OrganizationService;
 import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
+import com.enginious.userservice.service.organization.dto.OrganizationPage;
 import com.enginious.userservice.service.organization.dto.UpdateOrganizationRequest;
 import com.enginious.userservice.service.organization.exceptions.CreateOrganizationException;
 import com.enginious.userservice.service.organization.exceptions.DeleteOrganizationException;
 import com.enginious.userservice.service.organization.exceptions.ReadOrganizationException;
 import com.enginious.userservice.service.organization.exceptions.UpdateOrganizationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Slf4j
@@ -23,16 +35,17 @@ import java.util.List;
 public class OrganizationController extends BaseController {
 
     private final OrganizationService organizationService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public OrganizationController(OrganizationService organizationService) {
+    public OrganizationController(OrganizationService organizationService, ObjectMapper objectMapper) {
         this.organizationService = organizationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
     public ResponseEntity<?> createOrganization(@Valid @RequestBody CreateOrganizationRequest request) throws Throwable {
         try {
-            log.info(executing());
             return ResponseEntity.created(
                     ServletUriComponentsBuilder
                             .fromCurrentRequest()
@@ -45,18 +58,42 @@ public class OrganizationController extends BaseController {
                             .toUri()
             ).build();
         } catch (CreateOrganizationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
 
+    /**
+     * Accepts either a JSON array or newline delimited JSON, both read incrementally from the request body.
+     */
+    @PostMapping(path = "/_bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public BulkReport createOrganization(InputStream body) throws Throwable {
+        try (MappingIterator<CreateOrganizationRequest> requests = objectMapper.readerFor(CreateOrganizationRequest.class).readValues(body)) {
+            return organizationService.createOrganization(requests);
+        } catch (CreateOrganizationException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Answers with a strong ETag derived from the organization version. The version is only looked up when an
+     * {@code If-None-Match} header is present, and when it matches a 304 is sent without loading or serializing the
+     * organization.
+     */
     @GetMapping("/{organizationId}")
-    public Organization readOrganization(@PathVariable Long organizationId) throws Throwable {
+    public ResponseEntity<Organization> readOrganization(@PathVariable Long organizationId, WebRequest webRequest) throws Throwable {
         try {
-            log.info(executing());
-            return organizationService.readOrganization(organizationId);
+            if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && organizationService
+                    .readOrganizationVersion(organizationId)
+                    .map(version -> webRequest.checkNotModified(String.valueOf(version)))
+                    .orElse(false)) {
+                return null;
+            }
+            Organization organization = organizationService.readOrganization(organizationId);
+            return ResponseEntity.ok().eTag(String.valueOf(organization.getVersion())).body(organization);
         } catch (ReadOrganizationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
@@ -66,29 +103,87 @@ public class OrganizationController extends BaseController {
         try {
             return organizationService.readOrganization();
         } catch (ReadOrganizationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    @GetMapping("/_page")
+    public OrganizationPage readOrganization(@RequestParam(required = false) String next, @RequestParam(defaultValue = "100") int limit) throws Throwable {
+        try {
+            return organizationService.readOrganization(next, limit);
+        } catch (ReadOrganizationException e) {
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
 
+    @GetMapping(path = "/_stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamOrganization() {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                organizationService.readOrganization(organizations -> {
+                    for (Organization organization : organizations) {
+                        generator.writeObject(organization);
+                    }
+                    generator.flush();
+                });
+                generator.writeEndArray();
+            } catch (ReadOrganizationException e) {
+                log.error("error while streaming organizations", e);
+                throw new IOException(e.getMessage(), e.getCause());
+            }
+        };
+    }
+
+    /**
+     * With an {@code If-Match} header the update only applies to that version of the organization, otherwise a 412
+     * is returned. The ETag of the updated organization is sent back.
+     */
     @PutMapping("/{organizationId}")
-    public void updateOrganization(@PathVariable Long organizationId, @Valid @RequestBody UpdateOrganizationRequest request) throws Throwable {
+    public ResponseEntity<Void> updateOrganization(@PathVariable Long organizationId, @Valid @RequestBody UpdateOrganizationRequest request, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws Throwable {
+        Long expectedVersion = ifMatchVersion(ifMatch);
         try {
-            log.info(executing());
-            organizationService.updateOrganization(request, organizationId);
+            Organization organization = organizationService.updateOrganization(request, organizationId, expectedVersion);
+            return ResponseEntity.ok().eTag(String.valueOf(organization.getVersion())).build();
         } catch (UpdateOrganizationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
 
+    /**
+     * Deletes the organization together with its applications, roles and users. With {@code async=true} the deletion
+     * runs in the background instead, and a 202 is returned with the deletion and its location.
+     */
     @DeleteMapping("/{organizationId}")
-    public void deleteOrganization(@PathVariable Long organizationId) throws Throwable {
+    public ResponseEntity<OrganizationDeletion> deleteOrganization(@PathVariable Long organizationId, @RequestParam(defaultValue = "false") boolean async) throws Throwable {
         try {
-            log.info(executing());
-            organizationService.deleteOrganization(organizationId);
+            if (!async) {
+                organizationService.deleteOrganization(organizationId);
+                return ResponseEntity.ok().build();
+            }
+            OrganizationDeletion deletion = organizationService.deleteOrganizationInBackground(organizationId);
+            return ResponseEntity.accepted().location(
+                    ServletUriComponentsBuilder
+                            .fromCurrentContextPath()
+                            .path("/organization/_deletion/{deletionId}")
+                            .buildAndExpand(deletion.getId())
+                            .toUri()
+            ).body(deletion);
         } catch (DeleteOrganizationException e) {
-            log.error(error(), e);
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    @GetMapping("/_deletion/{deletionId}")
+    public OrganizationDeletion readOrganizationDeletion(@PathVariable String deletionId) throws Throwable {
+        try {
+            return organizationService.readOrganizationDeletion(deletionId);
+        } catch (ReadOrganizationException e) {
+            log.error("error while executing request", e);
             throw e.getCause();
         }
     }
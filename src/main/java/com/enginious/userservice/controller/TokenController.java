@@ -0,0 +1,61 @@
+package com.enginious.userservice.controller;
+
+import com.enginious.userservice.security.TokenService;
+import com.enginious.userservice.security.dto.TokenClaims;
+import com.enginious.userservice.security.dto.TokenResponse;
+import com.enginious.userservice.service.application.dto.ApplicationCredentials;
+import com.enginious.userservice.service.exceptions.InvalidRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+
+/**
+ * Exchanges HTTP Basic credentials of admins and applications for short lived bearer tokens. User tokens are issued
+ * by {@link UserController} after verifying the user password.
+ */
+@Slf4j
+@RestController
+@RequestMapping(path = "/token")
+public class TokenController extends BaseController {
+
+    private final TokenService tokenService;
+
+    @Autowired
+    public TokenController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping
+    public TokenResponse createToken(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof ApplicationCredentials) {
+            ApplicationCredentials credentials = (ApplicationCredentials) authentication.getPrincipal();
+            return tokenService.issue(TokenClaims.Type.application, credentials.getUuid(), credentials.getOrganizationId(), credentials.getId(), Collections.singletonList(credentials.getRole().name()));
+        }
+        if (authentication.getPrincipal() instanceof TokenClaims
+                || !AuthorityUtils.authorityListToSet(authentication.getAuthorities()).contains(TokenService.ROLE_ADMIN)) {
+            throw new InvalidRequestException("tokens are only issued for admin or application credentials");
+        }
+        return tokenService.issue(TokenClaims.Type.admin, authentication.getName(), null, null, Collections.emptyList());
+    }
+
+    @GetMapping
+    public TokenClaims readToken(Authentication authentication) {
+        return bearer(authentication);
+    }
+
+    @DeleteMapping
+    public void deleteToken(Authentication authentication) {
+        tokenService.revoke(bearer(authentication));
+    }
+
+    private static TokenClaims bearer(Authentication authentication) {
+        if (!(authentication.getPrincipal() instanceof TokenClaims)) {
+            throw new InvalidRequestException("request not authenticated with a bearer token");
+        }
+        return (TokenClaims) authentication.getPrincipal();
+    }
+}
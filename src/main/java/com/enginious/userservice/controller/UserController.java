@@ -0,0 +1,142 @@
+package com.enginious.userservice.controller;
+
+import com.enginious.userservice.model.Role;
+import com.enginious.userservice.model.User;
+import com.enginious.userservice.security.TokenService;
+import com.enginious.userservice.security.dto.TokenClaims;
+import com.enginious.userservice.security.dto.TokenResponse;
+import com.enginious.userservice.service.user.UserService;
+import com.enginious.userservice.service.user.dto.CreateUserRequest;
+import com.enginious.userservice.service.user.dto.LoginRequest;
+import com.enginious.userservice.service.user.dto.UpdateUserRequest;
+import com.enginious.userservice.service.user.exceptions.CreateUserException;
+import com.enginious.userservice.service.user.exceptions.DeleteUserException;
+import com.enginious.userservice.service.user.exceptions.LoginUserException;
+import com.enginious.userservice.service.user.exceptions.ReadUserException;
+import com.enginious.userservice.service.user.exceptions.UpdateUserException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RestController
+@RequestMapping(path = "/organization/{organizationId}/application/{applicationId}/user")
+public class UserController extends BaseController {
+
+    private final UserService userService;
+    private final TokenService tokenService;
+
+    @Autowired
+    public UserController(UserService userService, TokenService tokenService) {
+        this.userService = userService;
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createUser(@PathVariable Long organizationId, @PathVariable Long applicationId, @Valid @RequestBody CreateUserRequest request) throws Throwable {
+        try {
+            return ResponseEntity.created(
+                    ServletUriComponentsBuilder
+                            .fromCurrentRequest()
+                            .path("/{userId}")
+                            .buildAndExpand(
+                                    userService
+                                            .createUser(request, applicationId, organizationId)
+                                            .getId()
+                            )
+                            .toUri()
+            ).build();
+        } catch (CreateUserException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    @PostMapping("/_login")
+    public User login(@PathVariable Long organizationId, @PathVariable Long applicationId, @Valid @RequestBody LoginRequest request) throws Throwable {
+        try {
+            return userService.login(request, applicationId, organizationId);
+        } catch (LoginUserException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Verifies the user password once and returns a bearer token carrying the user roles.
+     */
+    @PostMapping("/_token")
+    public TokenResponse createToken(@PathVariable Long organizationId, @PathVariable Long applicationId, @Valid @RequestBody LoginRequest request) throws Throwable {
+        try {
+            User user = userService.login(request, applicationId, organizationId);
+            return tokenService.issue(
+                    TokenClaims.Type.user,
+                    String.valueOf(user.getId()),
+                    organizationId,
+                    applicationId,
+                    user.getRoles().stream().map(Role::getName).sorted().collect(Collectors.toList()));
+        } catch (LoginUserException e) {
+            throw e.getCause();
+        }
+    }
+
+    @GetMapping("/{userId}")
+    public User readUser(@PathVariable Long organizationId, @PathVariable Long applicationId, @PathVariable Long userId) throws Throwable {
+        try {
+            return userService.readUser(userId, applicationId, organizationId);
+        } catch (ReadUserException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    @GetMapping
+    public List<User> readUser(@PathVariable Long organizationId, @PathVariable Long applicationId) throws Throwable {
+        try {
+            return userService.readUser(applicationId, organizationId);
+        } catch (ReadUserException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Answers 204 when the user has the role and 404 when it has not, without a body in both cases.
+     */
+    @GetMapping("/{userId}/role/{role}")
+    public ResponseEntity<Void> hasRole(@PathVariable Long organizationId, @PathVariable Long applicationId, @PathVariable Long userId, @PathVariable String role) throws Throwable {
+        try {
+            return userService.hasRole(role, userId, applicationId, organizationId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (ReadUserException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    @PutMapping("/{userId}")
+    public void updateUser(@PathVariable Long organizationId, @PathVariable Long applicationId, @PathVariable Long userId, @Valid @RequestBody UpdateUserRequest request) throws Throwable {
+        try {
+            userService.updateUser(request, userId, applicationId, organizationId);
+        } catch (UpdateUserException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+
+    @DeleteMapping("/{userId}")
+    public void deleteUser(@PathVariable Long organizationId, @PathVariable Long applicationId, @PathVariable Long userId) throws Throwable {
+        try {
+            userService.deleteUser(userId, applicationId, organizationId);
+        } catch (DeleteUserException e) {
+            log.error("error while executing request", e);
+            throw e.getCause();
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.enginious.userservice.controller.exceptions;
 
 import lombok.extern.slf4j.Slf4j;
+import com.enginious.userservice.service.exceptions.InvalidRequestException;
+import com.enginious.userservice.service.exceptions.VersionMismatchException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,6 +21,7 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
 import java.util.Collections;
 import java.util.stream.Collectors;
 
@@ -25,7 +32,7 @@ public class ResponseEntityExceptionController extends ResponseEntityExceptionHa
 
     @ExceptionHandler({EntityNotFoundException.class, EmptyResultDataAccessException.class})
     public final ResponseEntity<ExceptionResponse> handleEntityNotFoundException(Exception ex, WebRequest request) {
-        log.trace(String.format("handling [%s]", ex.getClass()));
+        log.trace("handling [{}]", ex.getClass());
         return new ResponseEntity<>(ExceptionResponse
                 .builder()
                 .message("No entity found")
@@ -37,7 +44,7 @@ public class ResponseEntityExceptionController extends ResponseEntityExceptionHa
 
     @ExceptionHandler(DataIntegrityViolationException.class)
     public final ResponseEntity<ExceptionResponse> handleDataIntegrityViolationException(Exception ex, WebRequest request) {
-        log.trace(String.format("handling [%s]", ex.getClass()));
+        log.trace("handling [{}]", ex.getClass());
         return new ResponseEntity<>(ExceptionResponse
                 .builder()
                 .message("Constraint violation")
@@ -47,9 +54,81 @@ public class ResponseEntityExceptionController extends ResponseEntityExceptionHa
         );
     }
 
+    @ExceptionHandler(VersionMismatchException.class)
+    public final ResponseEntity<ExceptionResponse> handleVersionMismatchException(Exception ex, WebRequest request) {
+        log.trace("handling [{}]", ex.getClass());
+        return new ResponseEntity<>(ExceptionResponse
+                .builder()
+                .message("Precondition failed")
+                .details(Collections.singletonList(ex.getMessage()))
+                .build(),
+                HttpStatus.PRECONDITION_FAILED
+        );
+    }
+
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public final ResponseEntity<ExceptionResponse> handleOptimisticLockingFailureException(Exception ex, WebRequest request) {
+        log.trace("handling [{}]", ex.getClass());
+        return new ResponseEntity<>(ExceptionResponse
+                .builder()
+                .message("Concurrent modification")
+                .details(Collections.singletonList("Entity was concurrently modified, retry the request"))
+                .build(),
+                HttpStatus.CONFLICT
+        );
+    }
+
+    @ExceptionHandler(JsonProcessingException.class)
+    public final ResponseEntity<ExceptionResponse> handleJsonProcessingException(Exception ex, WebRequest request) {
+        log.trace("handling [{}]", ex.getClass());
+        return new ResponseEntity<>(ExceptionResponse
+                .builder()
+                .message("Malformed request")
+                .details(Collections.singletonList(ExceptionUtils.getRootCauseMessage(ex)))
+                .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public final ResponseEntity<ExceptionResponse> handleInvalidRequestException(Exception ex, WebRequest request) {
+        log.trace("handling [{}]", ex.getClass());
+        return new ResponseEntity<>(ExceptionResponse
+                .builder()
+                .message("Invalid request")
+                .details(Collections.singletonList(ex.getMessage()))
+                .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public final ResponseEntity<ExceptionResponse> handleAuthenticationException(Exception ex, WebRequest request) {
+        log.trace("handling [{}]", ex.getClass());
+        return new ResponseEntity<>(ExceptionResponse
+                .builder()
+                .message("Authentication failed")
+                .details(Collections.singletonList(ex.getMessage()))
+                .build(),
+                HttpStatus.UNAUTHORIZED
+        );
+    }
+
+    @ExceptionHandler(AuthenticationServiceException.class)
+    public final ResponseEntity<ExceptionResponse> handleAuthenticationServiceException(Exception ex, WebRequest request) {
+        log.trace("handling [{}]", ex.getClass());
+        return new ResponseEntity<>(ExceptionResponse
+                .builder()
+                .message("Authentication unavailable")
+                .details(Collections.singletonList(ex.getMessage()))
+                .build(),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
-        log.trace(String.format("handling [%s]", ex.getClass()));
+        log.trace("handling [{}]", ex.getClass());
         return new ResponseEntity<>(ExceptionResponse
                 .builder()
                 .message("Validation error")
@@ -0,0 +1,161 @@
+package com.enginious.userservice.filters;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Records method, path, correlation id and trace context of every request into the MDC, so that every log line
+ * written while serving it (controllers, services, repositories) carries them, and writes one access log line
+ * with status and latency when the request completes. Runs before Spring Security, so rejected requests are logged too.
+ * Async requests, such as streams and server-sent events, are logged once their async context completes, with their
+ * final status and total latency. An inbound correlation id longer than {@value #MAX_CORRELATION_ID_LENGTH} characters
+ * or with characters other than letters, digits, {@code .}, {@code _}, {@code :} and {@code -} is replaced by the
+ * trace id.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final int MAX_CORRELATION_ID_LENGTH = 128;
+
+    public static final String MDC_METHOD = "method";
+    public static final String MDC_PATH = "path";
+    public static final String MDC_CORRELATION_ID = "correlationId";
+    public static final String MDC_TRACE_ID = "traceId";
+    public static final String MDC_SPAN_ID = "spanId";
+
+    private static final Pattern CORRELATION_ID = Pattern.compile("^[A-Za-z0-9._:-]{1," + MAX_CORRELATION_ID_LENGTH + "}$");
+    private static final String ENTRY_ATTRIBUTE = AccessLogFilter.class.getName() + ".ENTRY";
+
+    /**
+     * Also runs on async dispatches, only to restore the MDC of the request on the dispatching thread.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Entry entry = (Entry) request.getAttribute(ENTRY_ATTRIBUTE);
+        if (entry == null) {
+            entry = new Entry(request);
+            request.setAttribute(ENTRY_ATTRIBUTE, entry);
+            response.setHeader(CORRELATION_ID_HEADER, entry.correlationId);
+            response.setHeader(TRACEPARENT_HEADER, entry.traceContext.toTraceparent());
+        }
+        entry.putMdc();
+        boolean failed = false;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            if (request.isAsyncStarted()) {
+                entry.listenTo(request, response);
+            } else if (!isAsyncDispatch(request)) {
+                entry.log(failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus());
+            }
+            clearMdc();
+        }
+    }
+
+    private static void clearMdc() {
+        MDC.remove(MDC_METHOD);
+        MDC.remove(MDC_PATH);
+        MDC.remove(MDC_CORRELATION_ID);
+        MDC.remove(MDC_TRACE_ID);
+        MDC.remove(MDC_SPAN_ID);
+    }
+
+    /**
+     * What the access log line of a request needs, kept as a request attribute across its dispatches.
+     */
+    private static final class Entry implements AsyncListener {
+
+        private final long start = System.nanoTime();
+        private final String method;
+        private final String path;
+        private final TraceContext traceContext;
+        private final String correlationId;
+        private boolean listening;
+
+        private Entry(HttpServletRequest request) {
+            String correlationId = request.getHeader(CORRELATION_ID_HEADER);
+            this.method = request.getMethod();
+            this.path = request.getRequestURI();
+            this.traceContext = TraceContext.from(request.getHeader(TRACEPARENT_HEADER));
+            this.correlationId = correlationId != null && CORRELATION_ID.matcher(correlationId).matches() ? correlationId : traceContext.getTraceId();
+        }
+
+        private void putMdc() {
+            MDC.put(MDC_METHOD, method);
+            MDC.put(MDC_PATH, path);
+            MDC.put(MDC_CORRELATION_ID, correlationId);
+            MDC.put(MDC_TRACE_ID, traceContext.getTraceId());
+            MDC.put(MDC_SPAN_ID, traceContext.getSpanId());
+        }
+
+        private synchronized void listenTo(HttpServletRequest request, HttpServletResponse response) {
+            if (!listening) {
+                listening = true;
+                request.getAsyncContext().addListener(this, request, response);
+            }
+        }
+
+        private void log(Object status) {
+            if (log.isInfoEnabled()) {
+                log.info("[{}] {path: {}} status [{}] in [{}] ms, correlation id [{}]",
+                        method,
+                        path,
+                        status,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        correlationId);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            putMdc();
+            try {
+                log(((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+            } finally {
+                clearMdc();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        /**
+         * Listeners are dropped when async processing is started again, from an async dispatch.
+         */
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this, event.getSuppliedRequest(), event.getSuppliedResponse());
+        }
+    }
+}
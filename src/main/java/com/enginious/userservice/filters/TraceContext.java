@@ -0,0 +1,41 @@
+package com.enginious.userservice.filters;
+
+import lombok.Value;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * W3C trace context (https://www.w3.org/TR/trace-context/) of the span serving the current request.
+ * The trace id is inherited from an incoming {@code traceparent} header when present, the span id is always new.
+ */
+@Value
+public class TraceContext {
+
+    private static final Pattern TRACEPARENT = Pattern.compile("^00-[0-9a-f]{32}-[0-9a-f]{16}-[0-9a-f]{2}$");
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+
+    String traceId;
+    String parentSpanId;
+    String spanId;
+
+    public static TraceContext from(String traceparent) {
+        if (traceparent != null && TRACEPARENT.matcher(traceparent).matches() && !traceparent.startsWith(INVALID_TRACE_ID, 3)) {
+            return new TraceContext(traceparent.substring(3, 35), traceparent.substring(36, 52), randomHex(1));
+        }
+        return new TraceContext(randomHex(2), null, randomHex(1));
+    }
+
+    public String toTraceparent() {
+        return String.format("00-%s-%s-01", traceId, spanId);
+    }
+
+    private static String randomHex(int longs) {
+        StringBuilder hex = new StringBuilder(longs * 16);
+        for (int i = 0; i < longs; i++) {
+            hex.append(StringUtils.leftPad(Long.toHexString(ThreadLocalRandom.current().nextLong()), 16, '0'));
+        }
+        return hex.toString();
+    }
+}
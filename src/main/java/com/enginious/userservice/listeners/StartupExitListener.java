@@ -0,0 +1,25 @@
+package com.enginious.userservice.listeners;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Shuts the application down as soon as it is ready when {@code startup.exit-when-ready=true}. Used by the training
+ * run of the {@code cds} build profile, which records the classes loaded during startup.
+ */
+@Slf4j
+public class StartupExitListener implements SpringApplicationRunListener {
+
+    public StartupExitListener(SpringApplication application, String[] args) {
+    }
+
+    @Override
+    public void running(ConfigurableApplicationContext context) {
+        if (context.getEnvironment().getProperty("startup.exit-when-ready", Boolean.class, false)) {
+            log.info("startup completed, exiting");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.enginious.userservice.listeners;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records when each startup phase is reached, in milliseconds since the JVM started, together with the slowest bean
+ * creations, and logs them as a single report once the application is ready. Enabled with
+ * {@code startup.timeline.enabled=true}.
+ */
+@Slf4j
+public class StartupTimelineListener implements SpringApplicationRunListener {
+
+    private static final int SLOWEST_BEANS = 10;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final BeanCreationTimer beanCreationTimer = new BeanCreationTimer();
+    private boolean enabled;
+
+    public StartupTimelineListener(SpringApplication application, String[] args) {
+    }
+
+    @Override
+    public void starting() {
+        mark("starting");
+    }
+
+    @Override
+    public void environmentPrepared(ConfigurableEnvironment environment) {
+        enabled = environment.getProperty("startup.timeline.enabled", Boolean.class, false);
+        mark("environment prepared");
+    }
+
+    @Override
+    public void contextPrepared(ConfigurableApplicationContext context) {
+        if (enabled) {
+            context.getBeanFactory().addBeanPostProcessor(beanCreationTimer);
+        }
+        mark("context prepared");
+    }
+
+    @Override
+    public void contextLoaded(ConfigurableApplicationContext context) {
+        mark("context loaded");
+    }
+
+    @Override
+    public void started(ConfigurableApplicationContext context) {
+        mark("context refreshed");
+    }
+
+    @Override
+    public void running(ConfigurableApplicationContext context) {
+        mark("ready");
+        if (enabled) {
+            beanCreationTimer.stop();
+            log.info("startup timeline (ms since jvm start): {}", phases
+                    .entrySet()
+                    .stream()
+                    .map(phase -> String.format("%s %d", phase.getKey(), phase.getValue()))
+                    .collect(Collectors.joining(", ")));
+            log.info("slowest bean creations (ms, dependencies included): {}", beanCreationTimer
+                    .durations
+                    .entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .limit(SLOWEST_BEANS)
+                    .map(bean -> String.format("%s %d", bean.getKey(), TimeUnit.NANOSECONDS.toMillis(bean.getValue())))
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private void mark(String phase) {
+        phases.put(phase, ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    /**
+     * Times each bean from instantiation to the end of its initialization, so the time spent creating the beans it
+     * depends on is included.
+     */
+    private static class BeanCreationTimer implements InstantiationAwareBeanPostProcessor {
+
+        private final Map<String, Long> started = new ConcurrentHashMap<>();
+        private final Map<String, Long> durations = new ConcurrentHashMap<>();
+        private volatile boolean stopped;
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+            if (!stopped) {
+                started.putIfAbsent(beanName, System.nanoTime());
+            }
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            Long start = started.remove(beanName);
+            if (start != null && !stopped) {
+                durations.put(beanName, System.nanoTime() - start);
+            }
+            return bean;
+        }
+
+        private void stop() {
+            stopped = true;
+            started.clear();
+        }
+    }
+}
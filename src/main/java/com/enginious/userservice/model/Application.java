@@ -3,6 +3,9 @@ package com.enginious.userservice.model;
 import com.enginious.userservice.model.enums.Role;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -11,12 +14,15 @@ import java.util.Set;
 
 @Data
 @Entity
+@Cacheable
 @NoArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "application")
+@Where(clause = "deletedAt is null")
 @Table(name = "application",
         uniqueConstraints = {
                 @UniqueConstraint(
                         name = "unq_application_organization_name",
-                        columnNames = {"organization", "name"}
+                        columnNames = {"organization", "name", "live"}
                 ),
                 @UniqueConstraint(
                         name = "unq_application_uuid",
@@ -29,11 +35,12 @@ public class Application {
     @Id
     @Column(name = "id")
     @Setter(AccessLevel.PRIVATE)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "application_sequence")
+    @SequenceGenerator(name = "application_sequence", sequenceName = "application_sequence", allocationSize = 50)
     private long id;
 
     @JsonIgnore
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "organization",
             referencedColumnName = "id",
             foreignKey = @ForeignKey(name = "fk_application_organization")
@@ -56,6 +63,27 @@ public class Application {
     @Column(name = "addedAt", columnDefinition = "TIMESTAMP", nullable = false)
     private LocalDateTime addedAt = LocalDateTime.now();
 
+    /**
+     * Set when the application is deleted, which hides it from every query until the purge worker deletes its row.
+     */
+    @JsonIgnore
+    @Column(name = "deletedAt", columnDefinition = "TIMESTAMP")
+    private LocalDateTime deletedAt;
+
+    /**
+     * True until the application is deleted, then null, which releases its name: unique keys ignore rows with a null
+     * column.
+     */
+    @JsonIgnore
+    @Column(name = "live")
+    @Setter(AccessLevel.PRIVATE)
+    private Boolean live = Boolean.TRUE;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @Setter(AccessLevel.PRIVATE)
+    private long version;
+
     @JsonIgnore
     @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "application")
@@ -69,4 +97,13 @@ public class Application {
         this.secret = secret;
         this.role = role;
     }
+
+    /**
+     * Hides the application and releases its unique keys. Flushed as a single row update by dirty checking, which also
+     * increments the version and only refreshes the second level cache entry of this application.
+     */
+    public void markDeleted(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+        this.live = null;
+    }
 }
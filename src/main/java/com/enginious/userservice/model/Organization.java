@@ -1,6 +1,10 @@
 package com.enginious.userservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -11,11 +15,14 @@ import java.util.Set;
 
 @Data
 @Entity
+@Cacheable
 @NoArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "organization")
+@Where(clause = "deletedAt is null")
 @Table(name = "organization",
         uniqueConstraints = @UniqueConstraint(
                 name = "unq_organization_vatNumber",
-                columnNames = "vatNumber"
+                columnNames = {"vatNumber", "live"}
         )
 )
 public class Organization {
@@ -23,7 +30,8 @@ public class Organization {
     @Id
     @Column(name = "id")
     @Setter(AccessLevel.PRIVATE)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "organization_sequence")
+    @SequenceGenerator(name = "organization_sequence", sequenceName = "organization_sequence", allocationSize = 50)
     private long id;
 
     @NotNull
@@ -39,8 +47,34 @@ public class Organization {
     @Column(name = "addedAt", columnDefinition = "TIMESTAMP", nullable = false)
     private LocalDateTime addedAt = LocalDateTime.now();
 
+    /**
+     * Set when the organization is deleted, which hides it from every query until the purge worker deletes its row.
+     */
+    @JsonIgnore
+    @Column(name = "deletedAt", columnDefinition = "TIMESTAMP")
+    private LocalDateTime deletedAt;
+
+    /**
+     * True until the organization is deleted, then null, which releases its VAT number: unique keys ignore rows with a
+     * null column.
+     */
+    @JsonIgnore
+    @Column(name = "live")
+    @Setter(AccessLevel.PRIVATE)
+    private Boolean live = Boolean.TRUE;
+
+    /**
+     * Also incremented whenever one of its applications is created, updated or deleted, so that it versions the
+     * whole organization representation, applications included.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    @Setter(AccessLevel.PRIVATE)
+    private long version;
+
     @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "organization")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "organization.applications")
     private Set<Application> applications = new HashSet<>();
 
     @Builder
@@ -48,4 +82,13 @@ public class Organization {
         this.vatNumber = vatNumber;
         this.name = name;
     }
+
+    /**
+     * Hides the organization and releases its unique keys. Flushed as a single row update by dirty checking, which also
+     * increments the version and only refreshes the second level cache entry of this organization.
+     */
+    public void markDeleted(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+        this.live = null;
+    }
 }
@@ -0,0 +1,62 @@
+package com.enginious.userservice.model;
+
+import com.enginious.userservice.model.enums.AggregateType;
+import com.enginious.userservice.model.enums.ChangeType;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A change of an organization or application, written in the transaction of the change itself and removed once
+ * published by the outbox relay. The payload is the JSON state of the aggregate after the change, or before it for
+ * deletions.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    @Id
+    @Column(name = "id")
+    @Setter(AccessLevel.PRIVATE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_sequence")
+    @SequenceGenerator(name = "outbox_event_sequence", sequenceName = "outbox_event_sequence", allocationSize = 50)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregateType", nullable = false)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregateId", nullable = false)
+    private long aggregateId;
+
+    @Column(name = "aggregateVersion", nullable = false)
+    private long aggregateVersion;
+
+    @Column(name = "organizationId", nullable = false)
+    private long organizationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private ChangeType type;
+
+    @JsonRawValue
+    @Column(name = "payload", length = 4000, nullable = false)
+    private String payload;
+
+    @Column(name = "occurredAt", columnDefinition = "TIMESTAMP", nullable = false)
+    private LocalDateTime occurredAt = LocalDateTime.now();
+
+    @Builder
+    public OutboxEvent(AggregateType aggregateType, long aggregateId, long aggregateVersion, long organizationId, ChangeType type, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.aggregateVersion = aggregateVersion;
+        this.organizationId = organizationId;
+        this.type = type;
+        this.payload = payload;
+    }
+}
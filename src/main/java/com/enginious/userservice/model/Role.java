@@ -1,16 +1,23 @@
 package com.enginious.userservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
+import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Date;
 
 @Data
 @Entity
+@Cacheable
 @NoArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "role")
 @Table(name = "role",
         uniqueConstraints = @UniqueConstraint(
                 name = "unq_role_application_name",
@@ -25,7 +32,9 @@ public class Role {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
-    @ManyToOne(optional = false)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "application",
             referencedColumnName = "id",
             foreignKey = @ForeignKey(name = "fk_role_application")
@@ -39,4 +48,9 @@ public class Role {
     @Column(name = "addedAt", columnDefinition = "TIMESTAMP", nullable = false)
     private Date addedAt = new Date();
 
+    @Builder
+    public Role(Application application, String name) {
+        this.application = application;
+        this.name = name;
+    }
 }
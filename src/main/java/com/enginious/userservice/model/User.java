@@ -26,7 +26,8 @@ public class User {
     private long id;
 
     @JsonIgnore
-    @ManyToOne(optional = false)
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "application",
             referencedColumnName = "id",
             foreignKey = @ForeignKey(name = "fk_user_application")
@@ -36,6 +37,8 @@ public class User {
     @Column(name = "username", nullable = false)
     private String username;
 
+    @JsonIgnore
+    @ToString.Exclude
     @Column(name = "password", nullable = false)
     private String password;
 
@@ -46,7 +49,7 @@ public class User {
     private LocalDateTime addedAt = LocalDateTime.now();
 
     @EqualsAndHashCode.Exclude
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(name = "user_role",
             joinColumns = @JoinColumn(name = "user", foreignKey = @ForeignKey(name = "fk_user_role_user")),
             inverseJoinColumns = @JoinColumn(name = "role", foreignKey = @ForeignKey(name = "fk_user_role_role"))
@@ -0,0 +1,7 @@
+package com.enginious.userservice.model.enums;
+
+public enum AggregateType {
+
+    ORGANIZATION,
+    APPLICATION
+}
@@ -0,0 +1,8 @@
+package com.enginious.userservice.model.enums;
+
+public enum ChangeType {
+
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -1,14 +1,48 @@
 package com.enginious.userservice.repository;
 
 import com.enginious.userservice.model.Application;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
 
 public interface ApplicationRepository extends JpaRepository<Application, Long> {
 
+    /**
+     * Cached in the {@code application.queries} region: results are invalidated by Hibernate whenever the
+     * application table is written, and resolved from the {@code application} entity region.
+     */
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = "application.queries")})
     Optional<Application> findOneByOrganizationIdAndId(Long organizationId, Long applicationId);
 
+    @EntityGraph(attributePaths = "organization")
+    Optional<Application> findOneByUuid(String uuid);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = "application.queries"), @QueryHint(name = READ_ONLY, value = "true")})
     List<Application> findAllByOrganizationId(Long organizationId);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = "version.queries")})
+    @Query("select a.version from Application a where a.organization.id = :organizationId and a.id = :id")
+    Optional<Long> findVersionByOrganizationIdAndId(@Param("organizationId") Long organizationId, @Param("id") Long id);
+
+    @Query("select a.name from Application a where a.organization.id = :organizationId")
+    Set<String> findNamesByOrganizationId(@Param("organizationId") Long organizationId);
+
+    /**
+     * Returns the soft deleted applications of organizations that are not deleted themselves, oldest deletion first.
+     * The applications of deleted organizations are purged together with their organization.
+     */
+    @Query(value = "select a.id from application a join organization o on a.organization = o.id where a.deletedAt is not null and o.deletedAt is null order by a.deletedAt", nativeQuery = true)
+    List<Long> findDeletedIds(Pageable pageable);
 }
@@ -1,7 +1,47 @@
 package com.enginious.userservice.repository;
 
 import com.enginious.userservice.model.Organization;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
 
 public interface OrganizationRepository extends JpaRepository<Organization, Long> {
+
+    /**
+     * Loaded read-only: Hibernate keeps no snapshot of the organizations and their applications and never dirty
+     * checks them, so they must not be modified.
+     */
+    @EntityGraph(attributePaths = "applications")
+    @QueryHints(@QueryHint(name = READ_ONLY, value = "true"))
+    List<Organization> findAllByOrderByIdAsc();
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = "version.queries")})
+    @Query("select o.version from Organization o where o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select o.id from Organization o where o.id > :after order by o.id asc")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @EntityGraph(attributePaths = "applications")
+    @QueryHints(@QueryHint(name = READ_ONLY, value = "true"))
+    List<Organization> findAllByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Returns the soft deleted organizations, oldest deletion first. Native, since soft deleted rows are filtered out
+     * of every entity query.
+     */
+    @Query(value = "select id from organization where deletedAt is not null order by deletedAt", nativeQuery = true)
+    List<Long> findDeletedIds(Pageable pageable);
 }
@@ -1,7 +1,28 @@
 package com.enginious.userservice.repository;
 
 import com.enginious.userservice.model.Role;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
+
+    List<Role> findAllByApplicationIdAndNameIn(Long applicationId, Collection<String> names);
+
+    @Query("select r.name from Role r where r.application.id = :applicationId order by r.id asc")
+    List<String> findNamesByApplicationIdOrderByIdAsc(@Param("applicationId") Long applicationId);
+
+    /**
+     * Returns the first role ids of the organization, used to purge its roles in chunks. Native, so that the roles
+     * of soft deleted applications are found.
+     */
+    @Query(value = "select r.id from role r join application a on r.application = a.id where a.organization = :organizationId order by r.id", nativeQuery = true)
+    List<Long> findIdsByOrganizationId(@Param("organizationId") Long organizationId, Pageable pageable);
+
+    @Query(value = "select r.id from role r where r.application = :applicationId order by r.id", nativeQuery = true)
+    List<Long> findIdsByApplicationId(@Param("applicationId") Long applicationId, Pageable pageable);
 }
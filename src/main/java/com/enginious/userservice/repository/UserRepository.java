@@ -1,7 +1,56 @@
 package com.enginious.userservice.repository;
 
 import com.enginious.userservice.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findOneByApplicationIdAndId(Long applicationId, Long userId);
+
+    /**
+     * Soft deleted applications are filtered explicitly here and below, since {@code @Where} does not apply to joined
+     * associations. The applications of a soft deleted organization are soft deleted with it.
+     */
+    @EntityGraph(attributePaths = "roles")
+    @Query("select u from User u " +
+            "where u.id = :userId and u.application.id = :applicationId and u.application.organization.id = :organizationId and u.application.deletedAt is null")
+    Optional<User> findOneByApplicationOrganizationIdAndApplicationIdAndId(@Param("organizationId") Long organizationId, @Param("applicationId") Long applicationId, @Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAllByApplicationId(Long applicationId);
+
+    @EntityGraph(attributePaths = "roles")
+    @QueryHints(@QueryHint(name = READ_ONLY, value = "true"))
+    @Query("select distinct u from User u " +
+            "where u.application.id = :applicationId and u.application.organization.id = :organizationId and u.application.deletedAt is null")
+    List<User> findDistinctByApplicationOrganizationIdAndApplicationId(@Param("organizationId") Long organizationId, @Param("applicationId") Long applicationId);
+
+    /**
+     * Resolves a user and its roles for login in a single statement, looked up through {@code unq_user_application_username}.
+     */
+    @Query("select distinct u from User u left join fetch u.roles " +
+            "where u.application.id = :applicationId and u.application.organization.id = :organizationId and u.username = :username and u.application.deletedAt is null")
+    Optional<User> findOneForLogin(@Param("organizationId") Long organizationId, @Param("applicationId") Long applicationId, @Param("username") String username);
+
+    /**
+     * Returns the first user ids of the organization, used to purge its users in chunks. Native, so that the users
+     * of soft deleted applications are found.
+     */
+    @Query(value = "select u.id from user u join application a on u.application = a.id where a.organization = :organizationId order by u.id", nativeQuery = true)
+    List<Long> findIdsByOrganizationId(@Param("organizationId") Long organizationId, Pageable pageable);
+
+    @Query(value = "select u.id from user u where u.application = :applicationId order by u.id", nativeQuery = true)
+    List<Long> findIdsByApplicationId(@Param("applicationId") Long applicationId, Pageable pageable);
 }
@@ -0,0 +1,43 @@
+package com.enginious.userservice.security;
+
+import com.enginious.userservice.security.dto.TokenClaims;
+import com.enginious.userservice.service.application.dto.ApplicationCredentials;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scopes application principals, authenticated either with their uuid and secret or with an application token, to
+ * their own application. Referenced by the access expressions of {@code LocalSecurityConfig} as
+ * {@code @applicationAccess}, with the path variables of the request.
+ */
+@Component("applicationAccess")
+public class ApplicationAccess {
+
+    /**
+     * Returns whether the request is authenticated as the application with the given ids. Ids that are not numbers,
+     * such as {@code _bulk} or {@code _watch} matched in place of an application id, never match.
+     */
+    public boolean isApplication(Authentication authentication, String organizationId, String applicationId) {
+        if (authentication == null) {
+            return false;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof ApplicationCredentials) {
+            ApplicationCredentials credentials = (ApplicationCredentials) principal;
+            return matches(credentials.getOrganizationId(), organizationId) && matches(credentials.getId(), applicationId);
+        }
+        if (principal instanceof TokenClaims && ((TokenClaims) principal).getTyp() == TokenClaims.Type.application) {
+            TokenClaims claims = (TokenClaims) principal;
+            return claims.getOrg() != null && claims.getApp() != null && matches(claims.getOrg(), organizationId) && matches(claims.getApp(), applicationId);
+        }
+        return false;
+    }
+
+    private static boolean matches(long id, String pathVariable) {
+        try {
+            return pathVariable != null && id == Long.parseLong(pathVariable);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.enginious.userservice.security;
+
+import com.enginious.userservice.service.application.ApplicationCredentialCache;
+import com.enginious.userservice.service.application.dto.ApplicationCredentials;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates machine-to-machine clients presenting an application uuid and secret as HTTP Basic credentials.
+ * Credentials are resolved through the {@link ApplicationCredentialCache}, so a warm lookup never reaches the database.
+ * Usernames that are not uuids are left to the other providers, see {@link #handles(String)}.
+ */
+@Slf4j
+@Component
+public class ApplicationAuthenticationProvider implements AuthenticationProvider {
+
+    public static final String ROLE_APPLICATION = "ROLE_APPLICATION";
+
+    private static final Pattern UUID = Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+
+    private final ApplicationCredentialCache applicationCredentialCache;
+
+    @Autowired
+    public ApplicationAuthenticationProvider(ApplicationCredentialCache applicationCredentialCache) {
+        this.applicationCredentialCache = applicationCredentialCache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String uuid = authentication.getName();
+        if (!handles(uuid)) {
+            return null;
+        }
+        Object presented = authentication.getCredentials();
+        ApplicationCredentials credentials = applicationCredentialCache
+                .get(uuid)
+                .orElseThrow(() -> new BadCredentialsException("Bad credentials"));
+        if (presented == null || !MessageDigest.isEqual(
+                credentials.getSecret().getBytes(StandardCharsets.UTF_8),
+                presented.toString().getBytes(StandardCharsets.UTF_8))) {
+            log.trace("rejected credentials for application with uuid [{}]", uuid);
+            throw new BadCredentialsException("Bad credentials");
+        }
+        return new UsernamePasswordAuthenticationToken(credentials, null, AuthorityUtils.createAuthorityList(ROLE_APPLICATION));
+    }
+
+    /**
+     * Returns whether the username is shaped like an application uuid, in which case no other provider is asked.
+     */
+    public static boolean handles(String username) {
+        return username != null && UUID.matcher(username).matches();
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
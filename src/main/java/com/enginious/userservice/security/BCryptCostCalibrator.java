@@ -0,0 +1,42 @@
+package com.enginious.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt strength for this host: the highest cost whose hash still completes within the target latency,
+ * never lower than the configured minimum. Each step doubles the work, so probing stops at the first cost over target.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 31;
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final String PROBE = "calibration-probe";
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration targetLatency, int minimumStrength) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            new BCryptPasswordEncoder(MIN_STRENGTH).encode(PROBE);
+        }
+        int strength = MIN_STRENGTH;
+        for (int candidate = MIN_STRENGTH; candidate <= MAX_STRENGTH; candidate++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(candidate).encode(PROBE);
+            long elapsed = System.nanoTime() - start;
+            log.debug("bcrypt strength [{}] took [{}] us", candidate, elapsed / 1000);
+            if (elapsed > targetLatency.toNanos()) {
+                break;
+            }
+            strength = candidate;
+        }
+        int calibrated = Math.max(strength, minimumStrength);
+        log.info("calibrated bcrypt strength [{}] for a target latency of [{}] ms", calibrated, targetLatency.toMillis());
+        return calibrated;
+    }
+}
@@ -0,0 +1,30 @@
+package com.enginious.userservice.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Signing keys are base64 encoded HMAC-SHA256 secrets of at least 32 bytes, indexed by key id. Tokens are signed
+ * with {@code active-key} and verified with any configured key, so a key is rotated by adding the new one, making it
+ * active, and removing the old one once the tokens it signed have expired. No key is shipped: only the {@code local}
+ * and {@code test} profiles configure one, elsewhere keys must be provided, for example as the
+ * {@code SECURITY_TOKEN_ACTIVE_KEY} and {@code SECURITY_TOKEN_KEYS_K1} environment variables, or startup fails.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.token")
+public class TokenProperties {
+
+    private String issuer = "user-service";
+
+    private Duration timeToLive = Duration.ofMinutes(15);
+
+    private String activeKey;
+
+    private Map<String, String> keys = new HashMap<>();
+}
@@ -0,0 +1,34 @@
+package com.enginious.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory list of revoked token ids. An entry is only kept until the token it refers to expires, so the list
+ * never grows beyond the tokens revoked within one time to live. Revocations are local to this instance.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public void revoke(String jti, long expiresAt) {
+        long now = Instant.now().getEpochSecond();
+        revoked.values().removeIf(exp -> exp < now);
+        revoked.put(jti, expiresAt);
+        log.trace("revoked token with id [{}]", jti);
+    }
+
+    public boolean isRevoked(String jti) {
+        return revoked.containsKey(jti);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+}
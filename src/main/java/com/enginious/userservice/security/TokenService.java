@@ -0,0 +1,169 @@
+package com.enginious.userservice.security;
+
+import com.enginious.userservice.security.dto.TokenClaims;
+import com.enginious.userservice.security.dto.TokenResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Issues and verifies compact JWS tokens (RFC 7515) signed with HMAC-SHA256. Verification only needs the key
+ * material held in memory: no database access and no password hashing.
+ */
+@Slf4j
+@Component
+public class TokenService {
+
+    public static final String BEARER = "Bearer";
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+    public static final String ROLE_END_USER = "ROLE_END_USER";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MINIMUM_KEY_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final TokenRevocationList tokenRevocationList;
+    private final String issuer;
+    private final long timeToLive;
+    private final String activeKey;
+    private final Map<String, ThreadLocal<Mac>> macs = new HashMap<>();
+
+    @Autowired
+    public TokenService(TokenProperties tokenProperties, TokenRevocationList tokenRevocationList, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.tokenRevocationList = tokenRevocationList;
+        this.issuer = tokenProperties.getIssuer();
+        this.timeToLive = tokenProperties.getTimeToLive().getSeconds();
+        this.activeKey = tokenProperties.getActiveKey();
+        if (activeKey == null || tokenProperties.getKeys().isEmpty()) {
+            throw new IllegalStateException("no signing key configured, security.token.active-key and security.token.keys are required");
+        }
+        tokenProperties.getKeys().forEach((kid, secret) -> {
+            byte[] key = Base64.getDecoder().decode(secret);
+            if (key.length < MINIMUM_KEY_LENGTH) {
+                throw new IllegalStateException(String.format("signing key [%s] must be at least %d bytes long", kid, MINIMUM_KEY_LENGTH));
+            }
+            macs.put(kid, ThreadLocal.withInitial(() -> mac(key)));
+        });
+        if (!macs.containsKey(activeKey)) {
+            throw new IllegalStateException(String.format("active signing key [%s] is not configured", activeKey));
+        }
+    }
+
+    public TokenResponse issue(TokenClaims.Type type, String subject, Long organizationId, Long applicationId, List<String> roles) {
+        long now = Instant.now().getEpochSecond();
+        TokenClaims claims = TokenClaims
+                .builder()
+                .iss(issuer)
+                .sub(subject)
+                .jti(UUID.randomUUID().toString())
+                .iat(now)
+                .exp(now + timeToLive)
+                .typ(type)
+                .org(organizationId)
+                .app(applicationId)
+                .roles(roles == null ? Collections.emptyList() : roles)
+                .build();
+        log.trace("issuing [{}] token with id [{}] for subject [{}]", type, claims.getJti(), subject);
+        return TokenResponse
+                .builder()
+                .accessToken(sign(claims))
+                .tokenType(BEARER)
+                .expiresIn(timeToLive)
+                .build();
+    }
+
+    /**
+     * Returns the claims of a token signed by any configured key, not yet expired and not revoked.
+     */
+    public TokenClaims verify(String token) {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last == first || last == token.length() - 1) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        try {
+            JsonNode header = objectMapper.readTree(DECODER.decode(token.substring(0, first)));
+            ThreadLocal<Mac> mac = macs.get(header.path("kid").asText());
+            if (mac == null || !"HS256".equals(header.path("alg").asText())) {
+                throw new BadCredentialsException("Unknown signing key");
+            }
+            byte[] expected = mac.get().doFinal(token.substring(0, last).getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, DECODER.decode(token.substring(last + 1)))) {
+                throw new BadCredentialsException("Invalid token signature");
+            }
+            TokenClaims claims = objectMapper.readValue(DECODER.decode(token.substring(first + 1, last)), TokenClaims.class);
+            if (!issuer.equals(claims.getIss()) || claims.getTyp() == null) {
+                throw new BadCredentialsException("Invalid token issuer");
+            }
+            if (claims.getExp() <= Instant.now().getEpochSecond()) {
+                throw new CredentialsExpiredException("Token expired");
+            }
+            if (tokenRevocationList.isRevoked(claims.getJti())) {
+                throw new BadCredentialsException("Token revoked");
+            }
+            return claims;
+        } catch (BadCredentialsException | CredentialsExpiredException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadCredentialsException("Malformed token", e);
+        }
+    }
+
+    public void revoke(TokenClaims claims) {
+        tokenRevocationList.revoke(claims.getJti(), claims.getExp());
+    }
+
+    public static String authority(TokenClaims.Type type) {
+        switch (type) {
+            case admin:
+                return ROLE_ADMIN;
+            case application:
+                return ApplicationAuthenticationProvider.ROLE_APPLICATION;
+            default:
+                return ROLE_END_USER;
+        }
+    }
+
+    private String sign(TokenClaims claims) {
+        try {
+            Map<String, String> header = new HashMap<>();
+            header.put("alg", "HS256");
+            header.put("typ", "JWT");
+            header.put("kid", activeKey);
+            String content = ENCODER.encodeToString(objectMapper.writeValueAsBytes(header)) + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return content + "." + ENCODER.encodeToString(macs.get(activeKey).get().doFinal(content.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException("error while signing token", e);
+        }
+    }
+
+    private static Mac mac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
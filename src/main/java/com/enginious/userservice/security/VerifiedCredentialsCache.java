@@ -0,0 +1,96 @@
+package com.enginious.userservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Short lived cache of successful password authentications, keyed by the SHA-256 of {@code username:password}
+ * (the decoded HTTP Basic header), so a client repeating the same credentials skips the BCrypt verification until
+ * the entry expires. Failed attempts are never cached, and no plain text password is kept.
+ */
+@Component
+public class VerifiedCredentialsCache implements MeterBinder {
+
+    private final Cache<String, Authentication> cache;
+
+    @Autowired
+    public VerifiedCredentialsCache(@Value("${security.password.verified-cache.maximum-size:10000}") long maximumSize,
+                                    @Value("${security.password.verified-cache.expire-after-write:PT30S}") Duration expireAfterWrite) {
+        this.cache = Caffeine
+                .newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Wraps the given provider so that its successful results are served from this cache.
+     */
+    public AuthenticationProvider wrap(AuthenticationProvider delegate) {
+        return new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+                if (authentication.getCredentials() == null) {
+                    return delegate.authenticate(authentication);
+                }
+                String key = key(authentication.getName(), authentication.getCredentials().toString());
+                Authentication cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    return cached;
+                }
+                Authentication result = delegate.authenticate(authentication);
+                if (result != null && result.isAuthenticated()) {
+                    cache.put(key, result);
+                }
+                return result;
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication) && delegate.supports(authentication);
+            }
+        };
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "verified-credentials");
+    }
+
+    private static String key(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
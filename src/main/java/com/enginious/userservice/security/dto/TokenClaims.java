@@ -0,0 +1,52 @@
+package com.enginious.userservice.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenClaims implements Principal {
+
+    public enum Type {
+        admin,
+        application,
+        user
+    }
+
+    private String iss;
+    private String sub;
+    private String jti;
+    private long iat;
+    private long exp;
+    private Type typ;
+    private Long org;
+    private Long app;
+    private List<String> roles = new ArrayList<>();
+
+    @Builder
+    public TokenClaims(String iss, String sub, String jti, long iat, long exp, Type typ, Long org, Long app, List<String> roles) {
+        this.iss = iss;
+        this.sub = sub;
+        this.jti = jti;
+        this.iat = iat;
+        this.exp = exp;
+        this.typ = typ;
+        this.org = org;
+        this.app = app;
+        this.roles = roles;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getName() {
+        return sub;
+    }
+}
@@ -0,0 +1,77 @@
+package com.enginious.userservice.service;
+
+import com.enginious.userservice.service.dto.BulkItemResult;
+import com.enginious.userservice.service.dto.BulkReport;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Shared reading loop of the bulk endpoints. Rows that cannot be mapped or fail bean validation are reported as
+ * {@link BulkItemResult.Status#INVALID}, while a payload that is no longer parseable stops reading and is reported as
+ * {@link BulkItemResult.Status#FAILED} on the offending row. Valid rows are handed to the consumer with their index.
+ */
+public final class BulkRequests {
+
+    private BulkRequests() {
+    }
+
+    public static <T> void read(Iterator<T> requests, Validator validator, BulkReport report, ObjIntConsumer<T> consumer) {
+        for (int index = 0; ; index++) {
+            T request;
+            try {
+                if (!requests.hasNext()) {
+                    return;
+                }
+                request = requests.next();
+            } catch (RuntimeJsonMappingException e) {
+                boolean malformed = e.getCause() instanceof JsonParseException;
+                report.add(failed(index, malformed ? BulkItemResult.Status.FAILED : BulkItemResult.Status.INVALID, e));
+                if (malformed) {
+                    return;
+                }
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(request);
+            if (violations.isEmpty()) {
+                consumer.accept(request, index);
+            } else {
+                report.add(BulkItemResult
+                        .builder()
+                        .index(index)
+                        .status(BulkItemResult.Status.INVALID)
+                        .errors(violations
+                                .stream()
+                                .map(v -> String.format("%s: %s", v.getPropertyPath(), v.getMessage()))
+                                .collect(Collectors.toList()))
+                        .build());
+            }
+        }
+    }
+
+    public static BulkItemResult created(int index, long id) {
+        return BulkItemResult
+                .builder()
+                .index(index)
+                .status(BulkItemResult.Status.CREATED)
+                .id(id)
+                .build();
+    }
+
+    public static BulkItemResult failed(int index, BulkItemResult.Status status, Throwable cause) {
+        return BulkItemResult
+                .builder()
+                .index(index)
+                .status(status)
+                .errors(Collections.singletonList(ExceptionUtils.getRootCauseMessage(cause)))
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.enginious.userservice.service;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.Organization;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Evicts the second level cache entries of soft deleted entities. A soft delete is a plain update, so Hibernate caches
+ * the deleted state, which lookups by id would then return since the {@code deletedAt} filter only applies to SQL.
+ * Only the entries of the deleted entities are evicted, never whole regions. Also invalidates the cached queries over
+ * the organization table after a forced version increment, which Hibernate runs as plain SQL.
+ */
+@Slf4j
+@Component
+public class SecondLevelCacheEvictor {
+
+    private static final String ORGANIZATION_APPLICATIONS = Organization.class.getName() + ".applications";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public SecondLevelCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Evicts the application and the application list of its organization once the current transaction completes,
+     * after Hibernate has cached the deleted state.
+     */
+    public void evictApplicationAfterCommit(long organizationId, long applicationId) {
+        afterCompletion(cache -> {
+            log.trace("evicting cached application with id [{}] for organization with id [{}]", applicationId, organizationId);
+            cache.evictEntityData(Application.class, applicationId);
+            cache.evictCollectionData(ORGANIZATION_APPLICATIONS, organizationId);
+        });
+    }
+
+    /**
+     * Evicts the organization and its application list once the current transaction completes.
+     */
+    public void evictOrganizationAfterCommit(long organizationId) {
+        afterCompletion(cache -> {
+            log.trace("evicting cached organization with id [{}]", organizationId);
+            cache.evictEntityData(Organization.class, organizationId);
+            cache.evictCollectionData(ORGANIZATION_APPLICATIONS, organizationId);
+        });
+    }
+
+    /**
+     * Invalidates the cached queries over the organization table, such as its version projection, the way Hibernate
+     * does for a row update: right away, and again once the current transaction completes. Entity regions are left
+     * untouched.
+     */
+    public void invalidateOrganizationQueries() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        String[] spaces = (String[]) session.getFactory().getMetamodel().entityPersister(Organization.class).getQuerySpaces();
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        timestamps.preInvalidate(spaces, session);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> timestamps.invalidate(spaces, completed));
+    }
+
+    private void afterCompletion(Eviction eviction) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.evict(cache);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.evict(cache);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Eviction {
+
+        void evict(Cache cache);
+    }
+}
@@ -0,0 +1,91 @@
+package com.enginious.userservice.service.application;
+
+import com.enginious.userservice.repository.ApplicationRepository;
+import com.enginious.userservice.service.application.dto.ApplicationCredentials;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Size bounded, time limited cache of {@link ApplicationCredentials} keyed by application uuid.
+ * Unknown uuids are not cached, so a newly created application is visible on its first lookup.
+ * Hit, miss and eviction counts are published as the {@code credentials} cache metrics. The repository is resolved
+ * on the first lookup, so binding the metrics at startup does not bootstrap JPA under lazy initialization.
+ */
+@Slf4j
+@Component
+public class ApplicationCredentialCache implements MeterBinder {
+
+    private final LoadingCache<String, ApplicationCredentials> cache;
+
+    @Autowired
+    public ApplicationCredentialCache(@Lazy ApplicationRepository applicationRepository,
+                                      @Value("${credentials.cache.maximum-size:10000}") long maximumSize,
+                                      @Value("${credentials.cache.expire-after-write:PT5M}") Duration expireAfterWrite) {
+        this.cache = Caffeine
+                .newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(uuid -> applicationRepository
+                        .findOneByUuid(uuid)
+                        .map(ApplicationCredentials::of)
+                        .orElse(null));
+    }
+
+    public Optional<ApplicationCredentials> get(String uuid) {
+        return Optional.ofNullable(cache.get(uuid));
+    }
+
+    public void evict(String uuid) {
+        log.trace("evicting credentials for application with uuid [{}]", uuid);
+        cache.invalidate(uuid);
+    }
+
+    /**
+     * Evicts the entry once the current transaction commits, so that a concurrent lookup cannot reload the
+     * pre-commit state into the cache. Evicts immediately when no transaction is active.
+     */
+    public void evictAfterCommit(String uuid) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(uuid);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(uuid);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "credentials");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+}
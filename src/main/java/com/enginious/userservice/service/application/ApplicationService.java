@@ -3,58 +3,105 @@ package com.enginious.userservice.service.application;
 import com.enginious.userservice.mappers.ApplicationMapper;
 import com.enginious.userservice.model.Application;
 import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.OutboxEvent;
+import com.enginious.userservice.model.enums.ChangeType;
 import com.enginious.userservice.repository.ApplicationRepository;
 import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.service.BulkRequests;
+import com.enginious.userservice.service.SecondLevelCacheEvictor;
+import com.enginious.userservice.service.dto.BulkItemResult;
+import com.enginious.userservice.service.dto.BulkReport;
+import com.enginious.userservice.service.exceptions.VersionMismatchException;
+import com.enginious.userservice.service.application.dto.ApplicationChangedEvent;
 import com.enginious.userservice.service.application.dto.CreateApplicationRequest;
 import com.enginious.userservice.service.application.dto.UpdateApplicationRequest;
 import com.enginious.userservice.service.application.exceptions.CreateApplicationException;
 import com.enginious.userservice.service.application.exceptions.DeleteApplicationException;
 import com.enginious.userservice.service.application.exceptions.ReadApplicationException;
 import com.enginious.userservice.service.application.exceptions.UpdateApplicationException;
+import com.enginious.userservice.service.outbox.OutboxWriter;
+import com.enginious.userservice.service.user.UserRoleCache;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
-import javax.transaction.Transactional;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
 import javax.validation.Valid;
-import java.util.List;
-import java.util.UUID;
+import javax.validation.Validator;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Slf4j
 @Service
 public class ApplicationService {
 
     private static final int APPLICATION_SECRET_LENGTH = 16;
+    private static final SecureRandom SECRET_RANDOM = new SecureRandom();
 
     private final OrganizationRepository organizationRepository;
     private final ApplicationRepository applicationRepository;
     private final ApplicationMapper applicationMapper;
+    private final ApplicationCredentialCache applicationCredentialCache;
+    private final UserRoleCache userRoleCache;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationWatchRegistry applicationWatchRegistry;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final Validator validator;
+    private final RetryTemplate conflictRetryTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public ApplicationService(ApplicationRepository applicationRepository, OrganizationRepository organizationRepository, ApplicationMapper applicationMapper) {
+    public ApplicationService(ApplicationRepository applicationRepository, OrganizationRepository organizationRepository, ApplicationMapper applicationMapper, ApplicationCredentialCache applicationCredentialCache, UserRoleCache userRoleCache, SecondLevelCacheEvictor secondLevelCacheEvictor, OutboxWriter outboxWriter, ApplicationWatchRegistry applicationWatchRegistry, ApplicationEventPublisher applicationEventPublisher, Validator validator, RetryTemplate conflictRetryTemplate, TransactionTemplate transactionTemplate, @Value("${bulk.batch-size:100}") int batchSize) {
         this.organizationRepository = organizationRepository;
         this.applicationRepository = applicationRepository;
         this.applicationMapper = applicationMapper;
+        this.applicationCredentialCache = applicationCredentialCache;
+        this.userRoleCache = userRoleCache;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.outboxWriter = outboxWriter;
+        this.applicationWatchRegistry = applicationWatchRegistry;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.validator = validator;
+        this.conflictRetryTemplate = conflictRetryTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
     }
 
-    @Transactional(rollbackOn = CreateApplicationException.class)
+    /**
+     * Runs in a transaction of its own, retried when the organization version increment loses a race with a
+     * concurrent application write.
+     */
     public Application createApplication(@Valid CreateApplicationRequest request, Long organizationId) throws CreateApplicationException {
         try {
-            log.trace(String.format("creating application with name [%s], role [%s] for organization with id [%09d]", request.getName(), request.getRole().name(), organizationId));
-            Organization organization = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
-            Application application = applicationRepository.save(
-                    Application
-                            .builder()
-                            .name(request.getName())
-                            .uuid(UUID.randomUUID().toString())
-                            .secret(RandomStringUtils.randomAlphanumeric(APPLICATION_SECRET_LENGTH))
-                            .role(request.getRole())
-                            .organization(organization)
-                            .build()
-            );
-            log.trace(String.format("created application with id [%09d]", application.getId()));
+            if (log.isTraceEnabled()) {
+                log.trace("creating application with name [{}], role [{}] for organization with id [{}]", request.getName(), request.getRole(), organizationId);
+            }
+            Application application = conflictRetryTemplate.execute(context -> transactionTemplate.execute(status -> {
+                Organization organization = lockOrganization(organizationId);
+                Application saved = applicationRepository.saveAndFlush(toApplication(request, organization));
+                outboxWriter.append(ChangeType.CREATED, saved);
+                publish(ChangeType.CREATED, saved, organization);
+                return saved;
+            }));
+            if (log.isTraceEnabled()) {
+                log.trace("created application with id [{}]", application.getId());
+            }
             return application;
         } catch (Exception e) {
             String msg = String.format("failed to create application with name [%s], role [%s] for organization with id [%09d]", request.getName(), request.getRole().name(), organizationId);
@@ -63,12 +110,57 @@ public class ApplicationService {
         }
     }
 
-    @Transactional(rollbackOn = ReadApplicationException.class)
+    /**
+     * Creates all applications read from the given iterator in a single transaction. Name clashes with existing
+     * applications of the organization, or within the request, are detected up front, ignoring case as the unique
+     * constraint does under the MySQL default collation, and reported per row as
+     * {@link BulkItemResult.Status#CONFLICT}, so a clash never aborts the rest of the request. Deleted applications
+     * release their names on deletion, so they take no part in the check. Unlike single writes it is not retried on a
+     * concurrent application write, since the request body can only be read once.
+     */
+    @Transactional(rollbackFor = CreateApplicationException.class)
+    public BulkReport createApplication(Iterator<CreateApplicationRequest> requests, Long organizationId) throws CreateApplicationException {
+        try {
+            log.trace("creating applications in bulk for organization with id [{}]", organizationId);
+            Organization organization = lockOrganization(organizationId);
+            Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            names.addAll(applicationRepository.findNamesByOrganizationId(organizationId));
+            BulkReport report = new BulkReport();
+            Map<Integer, Application> batch = new LinkedHashMap<>();
+            BulkRequests.read(requests, validator, report, (request, index) -> {
+                if (!names.add(request.getName())) {
+                    report.add(BulkItemResult
+                            .builder()
+                            .index(index)
+                            .status(BulkItemResult.Status.CONFLICT)
+                            .errors(Collections.singletonList(String.format("unq_application_organization_name: name [%s] already in use", request.getName())))
+                            .build());
+                    return;
+                }
+                batch.put(index, toApplication(request, organization));
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, report);
+                }
+            });
+            writeBatch(batch, report);
+            report.getItems().sort(Comparator.comparingInt(BulkItemResult::getIndex));
+            if (log.isTraceEnabled()) {
+                log.trace("created [{}] applications in bulk for organization with id [{}], [{}] failed", report.getCreated(), organizationId, report.getFailed());
+            }
+            return report;
+        } catch (Exception e) {
+            String msg = String.format("failed to create applications in bulk for organization with id [%09d]", organizationId);
+            log.error(msg, e);
+            throw new CreateApplicationException(msg, e);
+        }
+    }
+
+    @Transactional(readOnly = true, rollbackFor = ReadApplicationException.class)
     public Application readApplication(Long applicationId, Long organizationId) throws ReadApplicationException {
         try {
-            log.trace(String.format("reading application with id [%09d] for organization with id [%09d]", applicationId, organizationId));
+            log.trace("reading application with id [{}] for organization with id [{}]", applicationId, organizationId);
             Application application = applicationRepository.findOneByOrganizationIdAndId(organizationId, applicationId).orElseThrow(EntityNotFoundException::new);
-            log.trace(String.format("read application with id [%09d] for organization with id [%09d]", applicationId, organizationId));
+            log.trace("read application with id [{}] for organization with id [{}]", applicationId, organizationId);
             return application;
         } catch (Exception e) {
             String msg = String.format("failed to read application with id [%09d] for organization with id [%09d]", applicationId, organizationId);
@@ -77,12 +169,48 @@ public class ApplicationService {
         }
     }
 
-    @Transactional(rollbackOn = ReadApplicationException.class)
+    /**
+     * Reads only the version of the application, used as its ETag, through a cacheable projection query.
+     */
+    @Transactional(readOnly = true, rollbackFor = ReadApplicationException.class)
+    public Optional<Long> readApplicationVersion(Long applicationId, Long organizationId) throws ReadApplicationException {
+        try {
+            log.trace("reading version of application with id [{}] for organization with id [{}]", applicationId, organizationId);
+            Optional<Long> version = applicationRepository.findVersionByOrganizationIdAndId(organizationId, applicationId);
+            log.trace("read version of application with id [{}] for organization with id [{}]", applicationId, organizationId);
+            return version;
+        } catch (Exception e) {
+            String msg = String.format("failed to read version of application with id [%09d] for organization with id [%09d]", applicationId, organizationId);
+            log.error(msg, e);
+            throw new ReadApplicationException(msg, e);
+        }
+    }
+
+    /**
+     * Reads the version of the application list of the organization, used as its ETag. Every application write
+     * increments the organization version, so the organization version, read through a cacheable projection query,
+     * doubles as the version of the list.
+     */
+    @Transactional(readOnly = true, rollbackFor = ReadApplicationException.class)
+    public Optional<Long> readApplicationVersion(Long organizationId) throws ReadApplicationException {
+        try {
+            log.trace("reading version of applications for organization with id [{}]", organizationId);
+            Optional<Long> version = organizationRepository.findVersionById(organizationId);
+            log.trace("read version of applications for organization with id [{}]", organizationId);
+            return version;
+        } catch (Exception e) {
+            String msg = String.format("failed to read version of applications for organization with id [%09d]", organizationId);
+            log.error(msg, e);
+            throw new ReadApplicationException(msg, e);
+        }
+    }
+
+    @Transactional(readOnly = true, rollbackFor = ReadApplicationException.class)
     public List<Application> readApplication(Long organizationId) throws ReadApplicationException {
         try {
-            log.trace(String.format("reading applications for organization with id [%09d]", organizationId));
+            log.trace("reading applications for organization with id [{}]", organizationId);
             List<Application> applications = applicationRepository.findAllByOrganizationId(organizationId);
-            log.trace(String.format("read applications for organization with id [%09d]", organizationId));
+            log.trace("read applications for organization with id [{}]", organizationId);
             return applications;
         } catch (Exception e) {
             String msg = String.format("failed to read application for organization with id [%09d]", organizationId);
@@ -91,14 +219,51 @@ public class ApplicationService {
         }
     }
 
-    @Transactional(rollbackOn = UpdateApplicationException.class)
-    public Application updateApplication(@Valid UpdateApplicationRequest request, Long applicationId, Long organizationId) throws UpdateApplicationException {
+    /**
+     * Opens a Server-Sent Events stream of the applications of the organization: a {@code snapshot} event with the
+     * list, then a {@code created}, {@code updated} or {@code deleted} event with the application for every change
+     * committed afterwards. Event ids are organization versions. The watcher is registered before the snapshot is
+     * read, and the snapshot is read on the primary, so no change is missing from both.
+     */
+    @Transactional(rollbackFor = ReadApplicationException.class)
+    public SseEmitter watchApplication(Long organizationId) throws ReadApplicationException {
+        ApplicationWatchRegistry.Watcher watcher = applicationWatchRegistry.register(organizationId);
+        try {
+            log.trace("watching applications for organization with id [{}]", organizationId);
+            Organization organization = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
+            watcher.start(organization.getVersion(), applicationRepository.findAllByOrganizationId(organizationId));
+            log.trace("watching applications for organization with id [{}] from version [{}]", organizationId, organization.getVersion());
+            return watcher.getEmitter();
+        } catch (Exception e) {
+            watcher.cancel();
+            String msg = String.format("failed to watch applications for organization with id [%09d]", organizationId);
+            log.error(msg, e);
+            throw new ReadApplicationException(msg, e);
+        }
+    }
+
+    /**
+     * Updates the application in a transaction of its own, read again and retried whenever a concurrent write wins
+     * the optimistic locking race. A non null {@code expectedVersion} makes the update conditional on the application
+     * still being at that version.
+     */
+    public Application updateApplication(@Valid UpdateApplicationRequest request, Long applicationId, Long organizationId, Long expectedVersion) throws UpdateApplicationException {
         try {
-            log.trace(String.format("updating application with id [%09d] for organization with id [%09d]", applicationId, organizationId));
-            Application existing = applicationRepository.findOneByOrganizationIdAndId(organizationId, applicationId).orElseThrow(EntityNotFoundException::new);
-            applicationMapper.update(request, existing);
-            Application updated = applicationRepository.save(existing);
-            log.trace(String.format("updated application with id [%09d] for organization with id [%09d]", applicationId, organizationId));
+            log.trace("updating application with id [{}] for organization with id [{}]", applicationId, organizationId);
+            Application updated = conflictRetryTemplate.execute(context -> transactionTemplate.execute(status -> {
+                Application existing = applicationRepository.findOneByOrganizationIdAndId(organizationId, applicationId).orElseThrow(EntityNotFoundException::new);
+                if (expectedVersion != null && expectedVersion != existing.getVersion()) {
+                    throw new VersionMismatchException(expectedVersion, existing.getVersion());
+                }
+                Organization organization = lockOrganization(organizationId);
+                applicationMapper.update(request, existing);
+                Application saved = applicationRepository.saveAndFlush(existing);
+                outboxWriter.append(ChangeType.UPDATED, saved);
+                publish(ChangeType.UPDATED, saved, organization);
+                applicationCredentialCache.evictAfterCommit(saved.getUuid());
+                return saved;
+            }));
+            log.trace("updated application with id [{}] for organization with id [{}]", applicationId, organizationId);
             return updated;
         } catch (Exception e) {
             String msg = String.format("failed to update application with id [%09d] for organization with id [%09d]", applicationId, organizationId);
@@ -107,17 +272,74 @@ public class ApplicationService {
         }
     }
 
-    @Transactional(rollbackOn = DeleteApplicationException.class)
+    /**
+     * Marks the application deleted with a single row update, flushed by dirty checking, its row, roles and users are
+     * deleted later by the {@link com.enginious.userservice.service.organization.PurgeWorker}. Only the cache entries
+     * of the application and of the application list of its organization are evicted. Runs in a transaction of its own, retried
+     * when the organization version increment loses a race with a concurrent application write.
+     */
     public void deleteApplication(Long applicationId, Long organizationId) throws DeleteApplicationException {
         try {
-            log.trace(String.format("deleting application with id [%09d] for organization with id [%09d]", applicationId, organizationId));
-            Application application = applicationRepository.findOneByOrganizationIdAndId(organizationId, applicationId).orElseThrow(EntityNotFoundException::new);
-            applicationRepository.delete(application);
-            log.trace(String.format("deleted application with id [%09d] for organization with id [%09d]", applicationId, organizationId));
+            log.trace("deleting application with id [{}] for organization with id [{}]", applicationId, organizationId);
+            conflictRetryTemplate.execute(context -> transactionTemplate.execute(status -> {
+                Application application = applicationRepository.findOneByOrganizationIdAndId(organizationId, applicationId).orElseThrow(EntityNotFoundException::new);
+                Organization organization = lockOrganization(organizationId);
+                application.markDeleted(LocalDateTime.now());
+                applicationRepository.saveAndFlush(application);
+                outboxWriter.append(ChangeType.DELETED, application);
+                publish(ChangeType.DELETED, application, organization);
+                applicationCredentialCache.evictAfterCommit(application.getUuid());
+                userRoleCache.evictApplicationUsersAfterCommit(applicationId);
+                secondLevelCacheEvictor.evictApplicationAfterCommit(organizationId, applicationId);
+                return application;
+            }));
+            log.trace("deleted application with id [{}] for organization with id [{}]", applicationId, organizationId);
         } catch (Exception e) {
             String msg = String.format("failed to delete application with id [%09d] for organization with id [%09d]", applicationId, organizationId);
             log.error(msg, e);
             throw new DeleteApplicationException(msg, e);
         }
     }
+
+    /**
+     * Loads the organization and increments its version, so that its ETag and the ETag of its application list
+     * change together with any of its applications. The increment also serializes concurrent application writes
+     * on the same organization. It bypasses the query cache invalidation of a regular update, so the cached version
+     * queries of the organization are invalidated explicitly.
+     */
+    private Organization lockOrganization(Long organizationId) {
+        Organization organization = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
+        entityManager.lock(organization, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        secondLevelCacheEvictor.invalidateOrganizationQueries();
+        return organization;
+    }
+
+    private void publish(ChangeType type, Application application, Organization organization) {
+        applicationEventPublisher.publishEvent(new ApplicationChangedEvent(type, organization.getId(), organization.getVersion(), application));
+    }
+
+    private void writeBatch(Map<Integer, Application> batch, BulkReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        applicationRepository.saveAll(batch.values());
+        List<OutboxEvent> events = outboxWriter.appendApplications(ChangeType.CREATED, batch.values());
+        batch.values().forEach(application -> publish(ChangeType.CREATED, application, application.getOrganization()));
+        applicationRepository.flush();
+        batch.forEach((index, application) -> report.add(BulkRequests.created(index, application.getId())));
+        batch.values().forEach(entityManager::detach);
+        events.forEach(entityManager::detach);
+        batch.clear();
+    }
+
+    private static Application toApplication(CreateApplicationRequest request, Organization organization) {
+        return Application
+                .builder()
+                .name(request.getName())
+                .uuid(UUID.randomUUID().toString())
+                .secret(RandomStringUtils.random(APPLICATION_SECRET_LENGTH, 0, 0, true, true, null, SECRET_RANDOM))
+                .role(request.getRole())
+                .organization(organization)
+                .build();
+    }
 }
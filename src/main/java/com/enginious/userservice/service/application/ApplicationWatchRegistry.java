@@ -0,0 +1,240 @@
+package com.enginious.userservice.service.application;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.service.application.dto.ApplicationChangedEvent;
+import com.enginious.userservice.service.outbox.dto.ApplicationChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the Server-Sent Events watchers of the application lists, grouped by organization, and fans committed
+ * {@link ApplicationChangedEvent}s out to them as {@link ApplicationChange}s, which leave the secret out. Watchers hold no thread while idle: each change is serialized once and
+ * queued on every watcher of its organization, and a watcher with queued events is drained by one of the
+ * {@code applications.watch.pool-size} threads, so events reach a watcher in order and a slow client never holds up a
+ * writer. A watcher falling more than {@code applications.watch.max-pending} events behind is closed, and its client is
+ * expected to reconnect for a fresh snapshot. Changes are only seen by the watchers of the instance that made them.
+ */
+@Slf4j
+@Component
+public class ApplicationWatchRegistry implements MeterBinder, DisposableBean {
+
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Set<Watcher>> watchers = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final int maxPending;
+
+    @Autowired
+    public ApplicationWatchRegistry(ObjectMapper objectMapper,
+                                    @Value("${applications.watch.timeout:PT30M}") Duration timeout,
+                                    @Value("${applications.watch.max-pending:1000}") int maxPending,
+                                    @Value("${applications.watch.pool-size:2}") int poolSize) {
+        AtomicInteger threads = new AtomicInteger();
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxPending = maxPending;
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "application-watch-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Registers a watcher of the organization, which queues the changes committed from now on until
+     * {@link Watcher#start(long, List)} sends its snapshot.
+     */
+    public Watcher register(long organizationId) {
+        Watcher watcher = new Watcher(organizationId, new SseEmitter(timeoutMillis));
+        watchers.computeIfAbsent(organizationId, id -> ConcurrentHashMap.newKeySet()).add(watcher);
+        watcher.emitter.onCompletion(() -> remove(watcher));
+        watcher.emitter.onError(e -> remove(watcher));
+        watcher.emitter.onTimeout(() -> {
+            remove(watcher);
+            watcher.emitter.complete();
+        });
+        return watcher;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onApplicationChanged(ApplicationChangedEvent event) {
+        Set<Watcher> organizationWatchers = watchers.get(event.getOrganizationId());
+        if (organizationWatchers == null || organizationWatchers.isEmpty()) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(ApplicationChange.of(event.getApplication()));
+        } catch (IOException e) {
+            log.error("failed to serialize change of application with id [{}]", event.getApplication().getId(), e);
+            return;
+        }
+        Change change = new Change(event.getOrganizationVersion(), event.getType().name().toLowerCase(Locale.ROOT), data);
+        organizationWatchers.forEach(watcher -> watcher.offer(change));
+    }
+
+    /**
+     * Sends a comment to every watcher, keeping idle connections open through proxies and finding the watchers whose
+     * client is gone.
+     */
+    @Scheduled(fixedDelayString = "${applications.watch.heartbeat:PT30S}")
+    public void heartbeat() {
+        Change change = new Change(Long.MAX_VALUE, null, HEARTBEAT);
+        watchers.values().forEach(organizationWatchers -> organizationWatchers.forEach(watcher -> watcher.offer(change)));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+                .builder("applications.watchers", watchers, w -> w.values().stream().mapToInt(Set::size).sum())
+                .description("open application list watchers")
+                .register(registry);
+        new ExecutorServiceMetrics(executor, "applications.watch", Collections.emptyList()).bindTo(registry);
+    }
+
+    @Override
+    public void destroy() {
+        watchers.values().forEach(organizationWatchers -> organizationWatchers.forEach(watcher -> watcher.emitter.complete()));
+        executor.shutdown();
+    }
+
+    private void remove(Watcher watcher) {
+        watchers.computeIfPresent(watcher.organizationId, (id, organizationWatchers) -> {
+            organizationWatchers.remove(watcher);
+            return organizationWatchers.isEmpty() ? null : organizationWatchers;
+        });
+    }
+
+    public class Watcher {
+
+        private final long organizationId;
+        private final SseEmitter emitter;
+        private final Queue<Change> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long snapshotVersion = -1;
+
+        private Watcher(long organizationId, SseEmitter emitter) {
+            this.organizationId = organizationId;
+            this.emitter = emitter;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        /**
+         * Sends the applications as the {@code snapshot} event, without their secrets, then the queued changes that are not part of it.
+         */
+        public void start(long organizationVersion, List<Application> applications) throws IOException {
+            emitter.send(SseEmitter
+                    .event()
+                    .id(String.valueOf(organizationVersion))
+                    .name("snapshot")
+                    .data(objectMapper.writeValueAsString(applications.stream().map(ApplicationChange::of).collect(Collectors.toList()))));
+            snapshotVersion = organizationVersion;
+            drain();
+        }
+
+        public void cancel() {
+            remove(this);
+            emitter.complete();
+        }
+
+        private void offer(Change change) {
+            if (size.incrementAndGet() > maxPending) {
+                log.debug("closing watcher of organization with id [{}], more than [{}] changes behind", organizationId, maxPending);
+                cancel();
+                return;
+            }
+            pending.add(change);
+            if (snapshotVersion >= 0) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                Change change;
+                while ((change = pending.poll()) != null) {
+                    size.decrementAndGet();
+                    if (change.name == null) {
+                        emitter.send(SseEmitter.event().comment(change.data));
+                    } else if (change.organizationVersion > snapshotVersion) {
+                        emitter.send(SseEmitter
+                                .event()
+                                .id(String.valueOf(change.organizationVersion))
+                                .name(change.name)
+                                .data(change.data));
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("closing watcher of organization with id [{}], failed to send", organizationId, e);
+                remove(this);
+                pending.clear();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty()) {
+                drain();
+            }
+        }
+    }
+
+    private static class Change {
+
+        private final long organizationVersion;
+        private final String name;
+        private final String data;
+
+        private Change(long organizationVersion, String name, String data) {
+            this.organizationVersion = organizationVersion;
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
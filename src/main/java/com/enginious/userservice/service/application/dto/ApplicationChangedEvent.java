@@ -0,0 +1,18 @@
+package com.enginious.userservice.service.application.dto;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.enums.ChangeType;
+import lombok.Value;
+
+/**
+ * Published in the transaction of every application write. Every application write increments the version of its
+ * organization, so {@code organizationVersion}, the version after the write, orders the changes of an organization.
+ */
+@Value
+public class ApplicationChangedEvent {
+
+    ChangeType type;
+    long organizationId;
+    long organizationVersion;
+    Application application;
+}
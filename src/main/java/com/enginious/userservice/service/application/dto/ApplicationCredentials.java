@@ -0,0 +1,41 @@
+package com.enginious.userservice.service.application.dto;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.enums.Role;
+import lombok.Builder;
+import lombok.ToString;
+import lombok.Value;
+
+import java.security.Principal;
+
+/**
+ * Immutable snapshot of the fields needed to authenticate an {@link Application}, safe to keep in a cache
+ * outside of any persistence context.
+ */
+@Value
+@Builder
+public class ApplicationCredentials implements Principal {
+
+    long id;
+    long organizationId;
+    String uuid;
+    @ToString.Exclude
+    String secret;
+    Role role;
+
+    @Override
+    public String getName() {
+        return uuid;
+    }
+
+    public static ApplicationCredentials of(Application application) {
+        return ApplicationCredentials
+                .builder()
+                .id(application.getId())
+                .organizationId(application.getOrganization().getId())
+                .uuid(application.getUuid())
+                .secret(application.getSecret())
+                .role(application.getRole())
+                .build();
+    }
+}
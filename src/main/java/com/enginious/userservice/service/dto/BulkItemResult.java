@@ -0,0 +1,34 @@
+package com.enginious.userservice.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        CONFLICT,
+        FAILED
+    }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private List<String> errors;
+
+    @Builder
+    public BulkItemResult(int index, Status status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,23 @@
+package com.enginious.userservice.service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkReport {
+
+    private int created;
+    private int failed;
+    private List<BulkItemResult> items = new ArrayList<>();
+
+    public void add(BulkItemResult item) {
+        if (item.getStatus() == BulkItemResult.Status.CREATED) {
+            created++;
+        } else {
+            failed++;
+        }
+        items.add(item);
+    }
+}
@@ -0,0 +1,16 @@
+package com.enginious.userservice.service.exceptions;
+
+/**
+ * Thrown when a request parameter or header the client sent cannot be used, such as a malformed cursor or
+ * {@code If-Match} header. Answered with a bad request, unlike other runtime exceptions.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
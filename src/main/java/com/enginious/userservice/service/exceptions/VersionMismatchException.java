@@ -0,0 +1,11 @@
+package com.enginious.userservice.service.exceptions;
+
+/**
+ * Thrown when a conditional write names a version that is no longer the current one.
+ */
+public class VersionMismatchException extends RuntimeException {
+
+    public VersionMismatchException(long expectedVersion, long actualVersion) {
+        super(String.format("expected version [%d] but current version is [%d]", expectedVersion, actualVersion));
+    }
+}
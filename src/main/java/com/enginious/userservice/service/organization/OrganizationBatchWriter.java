@@ -0,0 +1,43 @@
+package com.enginious.userservice.service.organization;
+
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.enums.ChangeType;
+import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.service.outbox.OutboxWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Persists a batch of organizations in its own transaction, flushing once so that Hibernate can group the
+ * inserts, together with their outbox events, into JDBC batches. The persistence context is cleared afterwards to keep bulk imports memory-flat.
+ */
+@Component
+public class OrganizationBatchWriter {
+
+    private final OrganizationRepository organizationRepository;
+    private final OutboxWriter outboxWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public OrganizationBatchWriter(OrganizationRepository organizationRepository, OutboxWriter outboxWriter) {
+        this.organizationRepository = organizationRepository;
+        this.outboxWriter = outboxWriter;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Organization> save(List<Organization> organizations) {
+        List<Organization> saved = organizationRepository.saveAll(organizations);
+        outboxWriter.appendOrganizations(ChangeType.CREATED, saved);
+        organizationRepository.flush();
+        entityManager.clear();
+        return saved;
+    }
+}
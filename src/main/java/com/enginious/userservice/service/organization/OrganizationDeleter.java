@@ -0,0 +1,209 @@
+package com.enginious.userservice.service.organization;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.Role;
+import com.enginious.userservice.model.User;
+import com.enginious.userservice.model.enums.ChangeType;
+import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.repository.RoleRepository;
+import com.enginious.userservice.repository.UserRepository;
+import com.enginious.userservice.service.SecondLevelCacheEvictor;
+import com.enginious.userservice.service.application.ApplicationCredentialCache;
+import com.enginious.userservice.service.application.dto.ApplicationChangedEvent;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
+import com.enginious.userservice.service.outbox.OutboxWriter;
+import com.enginious.userservice.service.user.UserRoleCache;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Deletes organizations in two steps. {@link #softDelete(long)} hides the organization and its applications behind
+ * their {@code deletedAt} column in a single short transaction, evicting only their own second level cache entries. {@link #purge(long, OrganizationDeletion)} later
+ * deletes their rows, with their roles, users and user roles, through set based native statements in dependency order,
+ * without loading users or roles into the persistence context. Users and roles go first, in chunks of
+ * {@code organizations.deletion.chunk-size} each deleted in a transaction of its own so that row locks are held
+ * briefly, then the applications and the organization. Each statement invalidates only the second level cache regions
+ * of the entity it deletes. {@link #purgeApplication(long)} does the same for a single soft deleted
+ * application.
+ */
+@Slf4j
+@Component
+public class OrganizationDeleter {
+
+    private static final String DELETE_USER_ROLES_BY_USER = "delete from user_role where user in (:ids)";
+    private static final String DELETE_USERS = "delete from user where id in (:ids)";
+    private static final String DELETE_USER_ROLES_BY_ROLE = "delete from user_role where role in (:ids)";
+    private static final String DELETE_ROLES = "delete from role where id in (:ids)";
+    private static final String COUNT_DELETED_ORGANIZATION = "select count(*) from organization where id = :id and deletedAt is not null";
+    private static final String SWEEP_ORGANIZATION_USER_ROLES = "delete from user_role where user in (select u.id from user u join application a on u.application = a.id where a.organization = :id)";
+    private static final String SWEEP_ORGANIZATION_USERS = "delete from user where application in (select a.id from application a where a.organization = :id)";
+    private static final String SWEEP_ORGANIZATION_ROLES = "delete from role where application in (select a.id from application a where a.organization = :id)";
+    private static final String DELETE_ORGANIZATION_APPLICATIONS = "delete from application where organization = :id";
+    private static final String DELETE_ORGANIZATION = "delete from organization where id = :id";
+    private static final String FIND_DELETED_APPLICATION_ORGANIZATION = "select organization from application where id = :id and deletedAt is not null";
+    private static final String SWEEP_APPLICATION_USER_ROLES = "delete from user_role where user in (select u.id from user u where u.application = :id)";
+    private static final String SWEEP_APPLICATION_USERS = "delete from user where application = :id";
+    private static final String SWEEP_APPLICATION_ROLES = "delete from role where application = :id";
+    private static final String DELETE_APPLICATION = "delete from application where id = :id";
+
+    private final OrganizationRepository organizationRepository;
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationCredentialCache applicationCredentialCache;
+    private final UserRoleCache userRoleCache;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public OrganizationDeleter(OrganizationRepository organizationRepository, RoleRepository roleRepository, UserRepository userRepository, OutboxWriter outboxWriter, ApplicationCredentialCache applicationCredentialCache, UserRoleCache userRoleCache, SecondLevelCacheEvictor secondLevelCacheEvictor, ApplicationEventPublisher applicationEventPublisher, TransactionTemplate transactionTemplate, @Value("${organizations.deletion.chunk-size:500}") int chunkSize) {
+        this.organizationRepository = organizationRepository;
+        this.roleRepository = roleRepository;
+        this.userRepository = userRepository;
+        this.outboxWriter = outboxWriter;
+        this.applicationCredentialCache = applicationCredentialCache;
+        this.userRoleCache = userRoleCache;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Marks the organization and its applications deleted through dirty checking, one row update each, which also
+     * increments their versions. The organization is locked first, so no application can be added meanwhile.
+     */
+    public void softDelete(long organizationId) {
+        transactionTemplate.execute(status -> {
+            Organization organization = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
+            entityManager.lock(organization, LockModeType.PESSIMISTIC_WRITE);
+            List<Application> applications = new ArrayList<>(organization.getApplications());
+            LocalDateTime deletedAt = LocalDateTime.now();
+            applications.forEach(application -> application.markDeleted(deletedAt));
+            organization.markDeleted(deletedAt);
+            entityManager.flush();
+            for (Application application : applications) {
+                outboxWriter.append(ChangeType.DELETED, application);
+                applicationEventPublisher.publishEvent(new ApplicationChangedEvent(ChangeType.DELETED, organizationId, organization.getVersion(), application));
+                applicationCredentialCache.evictAfterCommit(application.getUuid());
+                userRoleCache.evictApplicationUsersAfterCommit(application.getId());
+                secondLevelCacheEvictor.evictApplicationAfterCommit(organizationId, application.getId());
+            }
+            outboxWriter.append(ChangeType.DELETED, organization);
+            secondLevelCacheEvictor.evictOrganizationAfterCommit(organizationId);
+            return organization;
+        });
+    }
+
+    /**
+     * Throws {@link EntityNotFoundException} when the organization is not soft deleted, before anything is deleted.
+     */
+    public void purge(long organizationId, OrganizationDeletion deletion) {
+        deletion.running();
+        if (count(COUNT_DELETED_ORGANIZATION, organizationId) == 0) {
+            throw new EntityNotFoundException();
+        }
+        deleteInChunks(organizationId, userRepository::findIdsByOrganizationId, roleRepository::findIdsByOrganizationId, deletion);
+        transactionTemplate.execute(status -> {
+            execute(SWEEP_ORGANIZATION_USER_ROLES, "id", organizationId, User.class);
+            deletion.deletedUsers(execute(SWEEP_ORGANIZATION_USERS, "id", organizationId, User.class));
+            deletion.deletedRoles(execute(SWEEP_ORGANIZATION_ROLES, "id", organizationId, Role.class));
+            deletion.deletedApplications(execute(DELETE_ORGANIZATION_APPLICATIONS, "id", organizationId, Application.class));
+            return execute(DELETE_ORGANIZATION, "id", organizationId, Organization.class);
+        });
+        if (log.isTraceEnabled()) {
+            log.trace("purged organization with id [{}] with [{}] applications, [{}] roles and [{}] users", organizationId, deletion.getApplications(), deletion.getRoles(), deletion.getUsers());
+        }
+    }
+
+    /**
+     * Throws {@link EntityNotFoundException} when the application is not soft deleted, before anything is deleted.
+     * Returns the progress of the purge, completed, tracked against the organization of the application.
+     */
+    public OrganizationDeletion purgeApplication(long applicationId) {
+        List<?> organizationIds = transactionTemplate.execute(status -> entityManager.createNativeQuery(FIND_DELETED_APPLICATION_ORGANIZATION).setParameter("id", applicationId).getResultList());
+        if (organizationIds.isEmpty()) {
+            throw new EntityNotFoundException();
+        }
+        OrganizationDeletion deletion = new OrganizationDeletion(((Number) organizationIds.get(0)).longValue());
+        deletion.running();
+        deleteInChunks(applicationId, userRepository::findIdsByApplicationId, roleRepository::findIdsByApplicationId, deletion);
+        transactionTemplate.execute(status -> {
+            execute(SWEEP_APPLICATION_USER_ROLES, "id", applicationId, User.class);
+            deletion.deletedUsers(execute(SWEEP_APPLICATION_USERS, "id", applicationId, User.class));
+            deletion.deletedRoles(execute(SWEEP_APPLICATION_ROLES, "id", applicationId, Role.class));
+            deletion.deletedApplications(execute(DELETE_APPLICATION, "id", applicationId, Application.class));
+            return applicationId;
+        });
+        if (log.isTraceEnabled()) {
+            log.trace("purged application with id [{}] with [{}] roles and [{}] users", applicationId, deletion.getRoles(), deletion.getUsers());
+        }
+        deletion.completed();
+        return deletion;
+    }
+
+    private void deleteInChunks(long id, BiFunction<Long, PageRequest, List<Long>> users, BiFunction<Long, PageRequest, List<Long>> roles, OrganizationDeletion deletion) {
+        deleteInChunks(id, users, ids -> {
+            execute(DELETE_USER_ROLES_BY_USER, "ids", ids, User.class);
+            deletion.deletedUsers(execute(DELETE_USERS, "ids", ids, User.class));
+            ids.forEach(userRoleCache::evictUserAfterCommit);
+        });
+        deleteInChunks(id, roles, ids -> {
+            execute(DELETE_USER_ROLES_BY_ROLE, "ids", ids, User.class);
+            deletion.deletedRoles(execute(DELETE_ROLES, "ids", ids, Role.class));
+        });
+    }
+
+    private void deleteInChunks(long id, BiFunction<Long, PageRequest, List<Long>> chunks, ChunkDeletion chunkDeletion) {
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> {
+                List<Long> ids = chunks.apply(id, PageRequest.of(0, chunkSize));
+                if (!ids.isEmpty()) {
+                    chunkDeletion.delete(ids);
+                }
+                return ids.size();
+            });
+        } while (count == chunkSize);
+    }
+
+    private long count(String sql, long id) {
+        return transactionTemplate.execute(status -> ((Number) entityManager.createNativeQuery(sql).setParameter("id", id).getSingleResult()).longValue());
+    }
+
+    private int execute(String sql, String name, Object value, Class<?> entityClass) {
+        return entityManager
+                .createNativeQuery(sql)
+                .setParameter(name, value)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(entityClass)
+                .executeUpdate();
+    }
+
+    @FunctionalInterface
+    private interface ChunkDeletion {
+
+        void delete(List<Long> ids);
+    }
+}
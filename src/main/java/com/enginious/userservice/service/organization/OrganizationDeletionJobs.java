@@ -0,0 +1,97 @@
+package com.enginious.userservice.service.organization;
+
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the purges of soft deleted organizations in the background on {@code organizations.deletion.pool-size}
+ * dedicated threads and keeps track of them, in memory, for {@code organizations.deletion.retention} after they
+ * finish. Submitting the purge of an organization already being purged returns the running deletion.
+ */
+@Slf4j
+@Component
+public class OrganizationDeletionJobs implements MeterBinder, DisposableBean {
+
+    private final OrganizationDeleter organizationDeleter;
+    private final Cache<String, OrganizationDeletion> deletions;
+    private final Map<Long, OrganizationDeletion> active = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public OrganizationDeletionJobs(OrganizationDeleter organizationDeleter,
+                                    @Value("${organizations.deletion.pool-size:1}") int poolSize,
+                                    @Value("${organizations.deletion.retention:PT24H}") Duration retention) {
+        AtomicInteger threads = new AtomicInteger();
+        this.organizationDeleter = organizationDeleter;
+        this.deletions = Caffeine
+                .newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "organization-deletion-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public OrganizationDeletion submit(long organizationId) {
+        return active.computeIfAbsent(organizationId, id -> {
+            OrganizationDeletion deletion = new OrganizationDeletion(id);
+            deletions.put(deletion.getId(), deletion);
+            executor.execute(() -> run(deletion));
+            return deletion;
+        });
+    }
+
+    public Optional<OrganizationDeletion> get(String deletionId) {
+        return Optional.ofNullable(deletions.getIfPresent(deletionId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "organizations.deletion", Collections.emptyList()).bindTo(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void run(OrganizationDeletion deletion) {
+        try {
+            organizationDeleter.purge(deletion.getOrganizationId(), deletion);
+            deletion.completed();
+        } catch (Exception e) {
+            log.error("failed to purge organization with id [{}] in background", deletion.getOrganizationId(), e);
+            deletion.failed(e);
+        } finally {
+            active.remove(deletion.getOrganizationId());
+            deletions.put(deletion.getId(), deletion);
+        }
+    }
+}
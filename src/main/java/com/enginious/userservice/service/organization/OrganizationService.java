@@ -2,39 +2,82 @@ package com.enginious.userservice.service.organization;
 
 import com.enginious.userservice.mappers.OrganizationMapper;
 import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.enums.ChangeType;
 import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.service.BulkRequests;
+import com.enginious.userservice.service.dto.BulkItemResult;
+import com.enginious.userservice.service.dto.BulkReport;
+import com.enginious.userservice.service.exceptions.InvalidRequestException;
+import com.enginious.userservice.service.exceptions.VersionMismatchException;
 import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
+import com.enginious.userservice.service.organization.dto.OrganizationPage;
 import com.enginious.userservice.service.organization.dto.UpdateOrganizationRequest;
 import com.enginious.userservice.service.organization.exceptions.CreateOrganizationException;
 import com.enginious.userservice.service.organization.exceptions.DeleteOrganizationException;
 import com.enginious.userservice.service.organization.exceptions.ReadOrganizationException;
 import com.enginious.userservice.service.organization.exceptions.UpdateOrganizationException;
+import com.enginious.userservice.service.outbox.OutboxWriter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityNotFoundException;
-import javax.transaction.Transactional;
 import javax.validation.Valid;
-import java.util.List;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class OrganizationService {
 
+    public static final int MAX_PAGE_LIMIT = 1000;
+
     private final OrganizationRepository organizationRepository;
     private final OrganizationMapper organizationMapper;
+    private final OrganizationBatchWriter organizationBatchWriter;
+    private final OrganizationDeleter organizationDeleter;
+    private final OrganizationDeletionJobs organizationDeletionJobs;
+    private final OutboxWriter outboxWriter;
+    private final Validator validator;
+    private final RetryTemplate conflictRetryTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int batchSize;
+    private final int streamChunkSize;
 
     @Autowired
-    public OrganizationService(OrganizationRepository organizationRepository, OrganizationMapper organizationMapper) {
+    public OrganizationService(OrganizationRepository organizationRepository, OrganizationMapper organizationMapper, OrganizationBatchWriter organizationBatchWriter, OrganizationDeleter organizationDeleter, OrganizationDeletionJobs organizationDeletionJobs, OutboxWriter outboxWriter, Validator validator, RetryTemplate conflictRetryTemplate, TransactionTemplate transactionTemplate, @Value("${bulk.batch-size:100}") int batchSize, @Value("${organizations.stream.chunk-size:500}") int streamChunkSize) {
         this.organizationRepository = organizationRepository;
         this.organizationMapper = organizationMapper;
+        this.organizationBatchWriter = organizationBatchWriter;
+        this.organizationDeleter = organizationDeleter;
+        this.organizationDeletionJobs = organizationDeletionJobs;
+        this.outboxWriter = outboxWriter;
+        this.validator = validator;
+        this.conflictRetryTemplate = conflictRetryTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.streamChunkSize = streamChunkSize;
     }
 
-    @Transactional(rollbackOn = CreateOrganizationException.class)
+    @Transactional(rollbackFor = CreateOrganizationException.class)
     public Organization createOrganization(@Valid CreateOrganizationRequest request) throws CreateOrganizationException {
         try {
-            log.trace(String.format("creating organization with name [%s] and vatNumber [%s]", request.getName(), request.getVatNumber()));
+            log.trace("creating organization with name [{}] and vatNumber [{}]", request.getName(), request.getVatNumber());
             Organization organization = organizationRepository.save(
                     Organization
                             .builder()
@@ -42,7 +85,10 @@ public class OrganizationService {
                             .vatNumber(request.getVatNumber())
                             .build()
             );
-            log.trace(String.format("created organization with id [%09d]", organization.getId()));
+            outboxWriter.append(ChangeType.CREATED, organization);
+            if (log.isTraceEnabled()) {
+                log.trace("created organization with id [{}]", organization.getId());
+            }
             return organization;
         } catch (Exception e) {
             String msg = String.format("failed to create organization with name [%s] and vatNumber [%s]", request.getName(), request.getVatNumber());
@@ -51,12 +97,42 @@ public class OrganizationService {
         }
     }
 
-    @Transactional(rollbackOn = ReadOrganizationException.class)
+    /**
+     * Creates organizations read from the given iterator, inserting valid rows in batches of {@code bulk.batch-size}
+     * each committed in its own transaction. A batch rejected by the database is retried row by row so that every
+     * row gets its own result.
+     */
+    public BulkReport createOrganization(Iterator<CreateOrganizationRequest> requests) throws CreateOrganizationException {
+        try {
+            log.trace("creating organizations in bulk");
+            BulkReport report = new BulkReport();
+            Map<Integer, CreateOrganizationRequest> batch = new LinkedHashMap<>();
+            BulkRequests.read(requests, validator, report, (request, index) -> {
+                batch.put(index, request);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, report);
+                }
+            });
+            writeBatch(batch, report);
+            report.getItems().sort(Comparator.comparingInt(BulkItemResult::getIndex));
+            if (log.isTraceEnabled()) {
+                log.trace("created [{}] organizations in bulk, [{}] failed", report.getCreated(), report.getFailed());
+            }
+            return report;
+        } catch (Exception e) {
+            String msg = "failed to create organizations in bulk";
+            log.error(msg, e);
+            throw new CreateOrganizationException(msg, e);
+        }
+    }
+
+    @Transactional(readOnly = true, rollbackFor = ReadOrganizationException.class)
     public Organization readOrganization(Long organizationId) throws ReadOrganizationException {
         try {
-            log.trace(String.format("reading organization with id [%09d]", organizationId));
+            log.trace("reading organization with id [{}]", organizationId);
             Organization organization = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
-            log.trace(String.format("read organization with id [%09d]", organizationId));
+            Hibernate.initialize(organization.getApplications());
+            log.trace("read organization with id [{}]", organizationId);
             return organization;
         } catch (Exception e) {
             String msg = String.format("failed to read organization with id [%09d]", organizationId);
@@ -65,13 +141,30 @@ public class OrganizationService {
         }
     }
 
-    @Transactional(rollbackOn = ReadOrganizationException.class)
+    /**
+     * Reads only the version of the organization, used as its ETag, through a cacheable projection query.
+     */
+    @Transactional(readOnly = true, rollbackFor = ReadOrganizationException.class)
+    public Optional<Long> readOrganizationVersion(Long organizationId) throws ReadOrganizationException {
+        try {
+            log.trace("reading version of organization with id [{}]", organizationId);
+            Optional<Long> version = organizationRepository.findVersionById(organizationId);
+            log.trace("read version of organization with id [{}]", organizationId);
+            return version;
+        } catch (Exception e) {
+            String msg = String.format("failed to read version of organization with id [%09d]", organizationId);
+            log.error(msg, e);
+            throw new ReadOrganizationException(msg, e);
+        }
+    }
+
+    @Transactional(readOnly = true, rollbackFor = ReadOrganizationException.class)
     public List<Organization> readOrganization() throws ReadOrganizationException {
         try {
             log.trace("reading organizations");
-            List<Organization> applications = organizationRepository.findAll();
+            List<Organization> organizations = organizationRepository.findAllByOrderByIdAsc();
             log.trace("read organizations");
-            return applications;
+            return organizations;
         } catch (Exception e) {
             String msg = "failed to read organizations";
             log.error(msg, e);
@@ -79,14 +172,89 @@ public class OrganizationService {
         }
     }
 
-    @Transactional(rollbackOn = UpdateOrganizationException.class)
-    public Organization updateOrganization(@Valid UpdateOrganizationRequest request, Long organizationId) throws UpdateOrganizationException {
+    @Transactional(readOnly = true, rollbackFor = ReadOrganizationException.class)
+    public OrganizationPage readOrganization(String cursor, int limit) throws ReadOrganizationException {
         try {
-            log.trace(String.format("updating organization with id [%09d]", organizationId));
-            Organization existing = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
-            organizationMapper.update(request, existing);
-            Organization updated = organizationRepository.save(existing);
-            log.trace(String.format("updated organization with id [%09d]", updated.getId()));
+            if (log.isTraceEnabled()) {
+                log.trace("reading organizations after cursor [{}] with limit [{}]", cursor, limit);
+            }
+            if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+                throw new InvalidRequestException(String.format("limit must be between 1 and %d", MAX_PAGE_LIMIT));
+            }
+            List<Long> ids = organizationRepository.findIdsAfter(decodeCursor(cursor), PageRequest.of(0, limit + 1));
+            boolean hasNext = ids.size() > limit;
+            List<Long> pageIds = hasNext ? ids.subList(0, limit) : ids;
+            OrganizationPage page = OrganizationPage
+                    .builder()
+                    .organizations(organizationRepository.findAllByIdInOrderByIdAsc(pageIds))
+                    .next(hasNext ? encodeCursor(pageIds.get(pageIds.size() - 1)) : null)
+                    .build();
+            if (log.isTraceEnabled()) {
+                log.trace("read [{}] organizations after cursor [{}]", pageIds.size(), cursor);
+            }
+            return page;
+        } catch (Exception e) {
+            String msg = String.format("failed to read organizations after cursor [%s] with limit [%d]", cursor, limit);
+            log.error(msg, e);
+            throw new ReadOrganizationException(msg, e);
+        }
+    }
+
+    /**
+     * Walks the whole organization table in keyset order, handing one chunk at a time to the given consumer.
+     * Each chunk is read in a read-only transaction of its own, so the persistence context, and the memory it holds,
+     * is discarded after every chunk and no connection is held while the consumer writes it out. The walk is driven
+     * by the ids, not by the organizations fetched for them, so an organization deleted in between does not end it.
+     */
+    public void readOrganization(OrganizationChunkConsumer consumer) throws ReadOrganizationException {
+        try {
+            log.trace("streaming organizations");
+            long after = 0;
+            long count = 0;
+            StreamChunk chunk;
+            do {
+                long last = after;
+                chunk = readOnlyTransactionTemplate.execute(status -> {
+                    List<Long> ids = organizationRepository.findIdsAfter(last, PageRequest.of(0, streamChunkSize));
+                    return new StreamChunk(ids, ids.isEmpty() ? Collections.emptyList() : organizationRepository.findAllByIdInOrderByIdAsc(ids));
+                });
+                if (!chunk.organizations.isEmpty()) {
+                    consumer.accept(chunk.organizations);
+                    count += chunk.organizations.size();
+                }
+                if (!chunk.ids.isEmpty()) {
+                    after = chunk.ids.get(chunk.ids.size() - 1);
+                }
+            } while (chunk.ids.size() == streamChunkSize);
+            if (log.isTraceEnabled()) {
+                log.trace("streamed [{}] organizations", count);
+            }
+        } catch (Exception e) {
+            String msg = "failed to stream organizations";
+            log.error(msg, e);
+            throw new ReadOrganizationException(msg, e);
+        }
+    }
+
+    /**
+     * Updates the organization in a transaction of its own, read again and retried whenever a concurrent write wins
+     * the optimistic locking race. A non null {@code expectedVersion} makes the update conditional on the organization
+     * still being at that version.
+     */
+    public Organization updateOrganization(@Valid UpdateOrganizationRequest request, Long organizationId, Long expectedVersion) throws UpdateOrganizationException {
+        try {
+            log.trace("updating organization with id [{}]", organizationId);
+            Organization updated = conflictRetryTemplate.execute(context -> transactionTemplate.execute(status -> {
+                Organization existing = organizationRepository.findById(organizationId).orElseThrow(EntityNotFoundException::new);
+                if (expectedVersion != null && expectedVersion != existing.getVersion()) {
+                    throw new VersionMismatchException(expectedVersion, existing.getVersion());
+                }
+                organizationMapper.update(request, existing);
+                Organization saved = organizationRepository.saveAndFlush(existing);
+                outboxWriter.append(ChangeType.UPDATED, saved);
+                return saved;
+            }));
+            log.trace("updated organization with id [{}]", organizationId);
             return updated;
         } catch (Exception e) {
             String msg = String.format("failed to update organization with id [%09d]", organizationId);
@@ -95,16 +263,118 @@ public class OrganizationService {
         }
     }
 
-    @Transactional(rollbackOn = DeleteOrganizationException.class)
+    /**
+     * Marks the organization and its applications deleted, their rows, roles and users are deleted later by the
+     * {@link PurgeWorker}, see {@link OrganizationDeleter}.
+     */
     public void deleteOrganization(Long organizationId) throws DeleteOrganizationException {
         try {
-            log.trace(String.format("deleting organization with id [%09d]", organizationId));
-            organizationRepository.deleteById(organizationId);
-            log.trace(String.format("deleted organization with id [%09d]", organizationId));
+            log.trace("deleting organization with id [{}]", organizationId);
+            organizationDeleter.softDelete(organizationId);
+            log.trace("deleted organization with id [{}]", organizationId);
         } catch (Exception e) {
             String msg = String.format("failed to delete organization with id [%09d]", organizationId);
             log.error(msg, e);
             throw new DeleteOrganizationException(msg, e);
         }
     }
+
+    /**
+     * Marks the organization deleted like {@link #deleteOrganization(Long)}, then purges it right away as a background
+     * job instead of waiting for the {@link PurgeWorker}. Its progress is read through
+     * {@link #readOrganizationDeletion(String)}.
+     */
+    public OrganizationDeletion deleteOrganizationInBackground(Long organizationId) throws DeleteOrganizationException {
+        try {
+            log.trace("submitting deletion of organization with id [{}]", organizationId);
+            organizationDeleter.softDelete(organizationId);
+            OrganizationDeletion deletion = organizationDeletionJobs.submit(organizationId);
+            log.trace("submitted deletion [{}] of organization with id [{}]", deletion.getId(), organizationId);
+            return deletion;
+        } catch (Exception e) {
+            String msg = String.format("failed to submit deletion of organization with id [%09d]", organizationId);
+            log.error(msg, e);
+            throw new DeleteOrganizationException(msg, e);
+        }
+    }
+
+    public OrganizationDeletion readOrganizationDeletion(String deletionId) throws ReadOrganizationException {
+        try {
+            log.trace("reading organization deletion [{}]", deletionId);
+            OrganizationDeletion deletion = organizationDeletionJobs.get(deletionId).orElseThrow(EntityNotFoundException::new);
+            log.trace("read organization deletion [{}]", deletionId);
+            return deletion;
+        } catch (Exception e) {
+            String msg = String.format("failed to read organization deletion [%s]", deletionId);
+            log.error(msg, e);
+            throw new ReadOrganizationException(msg, e);
+        }
+    }
+
+    private void writeBatch(Map<Integer, CreateOrganizationRequest> batch, BulkReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<Organization> saved = organizationBatchWriter.save(batch
+                    .values()
+                    .stream()
+                    .map(OrganizationService::toOrganization)
+                    .collect(Collectors.toList()));
+            Iterator<Organization> organizations = saved.iterator();
+            batch.keySet().forEach(index -> report.add(BulkRequests.created(index, organizations.next().getId())));
+        } catch (Exception e) {
+            if (log.isTraceEnabled()) {
+                log.trace("batch of [{}] organizations rejected, retrying row by row", batch.size());
+            }
+            batch.forEach((index, request) -> {
+                try {
+                    report.add(BulkRequests.created(index, organizationBatchWriter.save(Collections.singletonList(toOrganization(request))).get(0).getId()));
+                } catch (Exception rowException) {
+                    report.add(BulkRequests.failed(index, rowException instanceof DataIntegrityViolationException ? BulkItemResult.Status.CONFLICT : BulkItemResult.Status.FAILED, rowException));
+                }
+            });
+        }
+        batch.clear();
+    }
+
+    private static Organization toOrganization(CreateOrganizationRequest request) {
+        return Organization
+                .builder()
+                .name(request.getName())
+                .vatNumber(request.getVatNumber())
+                .build();
+    }
+
+    private static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (StringUtils.isEmpty(cursor)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(String.format("invalid cursor [%s]", cursor), e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface OrganizationChunkConsumer {
+
+        void accept(List<Organization> organizations) throws IOException;
+    }
+
+    private static final class StreamChunk {
+
+        private final List<Long> ids;
+        private final List<Organization> organizations;
+
+        private StreamChunk(List<Long> ids, List<Organization> organizations) {
+            this.ids = ids;
+            this.organizations = organizations;
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package com.enginious.userservice.service.organization;
+
+import com.enginious.userservice.repository.ApplicationRepository;
+import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Purges the soft deleted organizations and applications, at most {@code purge.batch-size} of each per run, on the
+ * {@code purge.cron} schedule, by default every five minutes in the low traffic hours. Organizations are handed to the
+ * {@link OrganizationDeletionJobs}, applications are purged inline. A failed purge is logged and retried on the next
+ * run. Eager even under lazy initialization, since nothing else would create it.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class PurgeWorker {
+
+    private final OrganizationRepository organizationRepository;
+    private final ApplicationRepository applicationRepository;
+    private final OrganizationDeleter organizationDeleter;
+    private final OrganizationDeletionJobs organizationDeletionJobs;
+    private final int batchSize;
+
+    @Autowired
+    public PurgeWorker(OrganizationRepository organizationRepository, ApplicationRepository applicationRepository, OrganizationDeleter organizationDeleter, OrganizationDeletionJobs organizationDeletionJobs, @Value("${purge.batch-size:10}") int batchSize) {
+        this.organizationRepository = organizationRepository;
+        this.applicationRepository = applicationRepository;
+        this.organizationDeleter = organizationDeleter;
+        this.organizationDeletionJobs = organizationDeletionJobs;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the organization purges submitted together with the application purges completed.
+     */
+    @Scheduled(cron = "${purge.cron:0 */5 1-5 * * *}")
+    public List<OrganizationDeletion> purge() {
+        List<OrganizationDeletion> deletions = new ArrayList<>();
+        try {
+            organizationRepository
+                    .findDeletedIds(PageRequest.of(0, batchSize))
+                    .forEach(organizationId -> deletions.add(organizationDeletionJobs.submit(organizationId)));
+            for (Long applicationId : applicationRepository.findDeletedIds(PageRequest.of(0, batchSize))) {
+                purgeApplication(applicationId).ifPresent(deletions::add);
+            }
+        } catch (Exception e) {
+            log.error("failed to look up soft deleted organizations and applications", e);
+        }
+        return deletions;
+    }
+
+    private Optional<OrganizationDeletion> purgeApplication(long applicationId) {
+        try {
+            return Optional.of(organizationDeleter.purgeApplication(applicationId));
+        } catch (Exception e) {
+            log.error("failed to purge application with id [{}]", applicationId, e);
+            return Optional.empty();
+        }
+    }
+}
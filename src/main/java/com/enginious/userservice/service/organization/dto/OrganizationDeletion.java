@@ -0,0 +1,64 @@
+package com.enginious.userservice.service.organization.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of the deletion of an organization, updated by the thread running it and readable from any other.
+ */
+@Getter
+@ToString
+public class OrganizationDeletion {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final long organizationId;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile long users;
+    private volatile long roles;
+    private volatile long applications;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public OrganizationDeletion(long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public void running() {
+        status = Status.RUNNING;
+    }
+
+    public void deletedUsers(long count) {
+        users += count;
+    }
+
+    public void deletedRoles(long count) {
+        roles += count;
+    }
+
+    public void deletedApplications(long count) {
+        applications += count;
+    }
+
+    public void completed() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    public void failed(Exception e) {
+        finishedAt = LocalDateTime.now();
+        error = e.getClass().getSimpleName();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,23 @@
+package com.enginious.userservice.service.organization.dto;
+
+import com.enginious.userservice.model.Organization;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class OrganizationPage {
+
+    private List<Organization> organizations;
+
+    private String next;
+
+    @Builder
+    public OrganizationPage(List<Organization> organizations, String next) {
+        this.organizations = organizations;
+        this.next = next;
+    }
+}
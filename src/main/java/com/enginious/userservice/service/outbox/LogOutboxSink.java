@@ -0,0 +1,27 @@
+package com.enginious.userservice.service.outbox;
+
+import com.enginious.userservice.model.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Logs every event as a single line of JSON at info level, the default {@link OutboxSink}.
+ */
+@Slf4j
+public class LogOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+
+    public LogOutboxSink(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws Exception {
+        for (OutboxEvent event : events) {
+            log.info("{}", objectMapper.writeValueAsString(event));
+        }
+    }
+}
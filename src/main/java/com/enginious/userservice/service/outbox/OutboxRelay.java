@@ -0,0 +1,82 @@
+package com.enginious.userservice.service.outbox;
+
+import com.enginious.userservice.model.OutboxEvent;
+import com.enginious.userservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Publishes the outbox to the {@link OutboxSink} in batches of {@code outbox.relay.batch-size}, every
+ * {@code outbox.relay.interval}. Each batch is locked, published and removed in a transaction of its own, so a failed
+ * batch stays in the outbox and is published again on the next run. Eager even under lazy initialization, since
+ * nothing else would create it.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final int batchSize;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink outboxSink, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry, @Value("${outbox.relay.batch-size:100}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = transactionTemplate;
+        this.published = Counter
+                .builder("outbox.events.published")
+                .description("events published by the outbox relay")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Publishes until the outbox is empty, returning the number of events published.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:PT1S}")
+    public int relay() {
+        int total = 0;
+        try {
+            int count;
+            do {
+                count = transactionTemplate.execute(status -> publishBatch());
+                total += count;
+            } while (count == batchSize);
+        } catch (Exception e) {
+            log.error("failed to relay outbox events, [{}] published before the failure", total, e);
+        }
+        return total;
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            outboxSink.publish(events);
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("failed to publish [%d] outbox events", events.size()), e);
+        }
+        outboxEventRepository.deleteInBatch(events);
+        published.increment(events.size());
+        if (log.isTraceEnabled()) {
+            log.trace("published [{}] outbox events up to id [{}]", events.size(), events.get(events.size() - 1).getId());
+        }
+        return events.size();
+    }
+}
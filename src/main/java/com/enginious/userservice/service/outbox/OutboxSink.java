@@ -0,0 +1,16 @@
+package com.enginious.userservice.service.outbox;
+
+import com.enginious.userservice.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the events published by the {@link OutboxRelay}. Events are handed over in id order, and a batch
+ * is removed from the outbox only when {@link #publish(List)} returns normally: a failed batch is handed over again,
+ * so sinks get every event at least once.
+ */
+@FunctionalInterface
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,96 @@
+package com.enginious.userservice.service.outbox;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.OutboxEvent;
+import com.enginious.userservice.model.enums.AggregateType;
+import com.enginious.userservice.model.enums.ChangeType;
+import com.enginious.userservice.repository.OutboxEventRepository;
+import com.enginious.userservice.service.outbox.dto.ApplicationChange;
+import com.enginious.userservice.service.outbox.dto.OrganizationChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Appends outbox events in the transaction of the change they describe, which must already be running, so an event
+ * is stored if and only if its change is committed. Versions are read from the given entities, which have to be
+ * flushed first for updates to carry their incremented version.
+ */
+@Slf4j
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public OutboxEvent append(ChangeType type, Organization organization) {
+        return outboxEventRepository.save(toEvent(type, organization));
+    }
+
+    public List<OutboxEvent> appendOrganizations(ChangeType type, Collection<Organization> organizations) {
+        return outboxEventRepository.saveAll(organizations.stream().map(organization -> toEvent(type, organization)).collect(Collectors.toList()));
+    }
+
+    public OutboxEvent append(ChangeType type, Application application) {
+        return outboxEventRepository.save(toEvent(type, application));
+    }
+
+    public List<OutboxEvent> appendApplications(ChangeType type, Collection<Application> applications) {
+        return outboxEventRepository.saveAll(applications.stream().map(application -> toEvent(type, application)).collect(Collectors.toList()));
+    }
+
+    private OutboxEvent toEvent(ChangeType type, Organization organization) {
+        if (log.isTraceEnabled()) {
+            log.trace("appending [{}] event of organization with id [{}]", type, organization.getId());
+        }
+        return OutboxEvent
+                .builder()
+                .aggregateType(AggregateType.ORGANIZATION)
+                .aggregateId(organization.getId())
+                .aggregateVersion(organization.getVersion())
+                .organizationId(organization.getId())
+                .type(type)
+                .payload(json(OrganizationChange.of(organization)))
+                .build();
+    }
+
+    private OutboxEvent toEvent(ChangeType type, Application application) {
+        if (log.isTraceEnabled()) {
+            log.trace("appending [{}] event of application with id [{}]", type, application.getId());
+        }
+        return OutboxEvent
+                .builder()
+                .aggregateType(AggregateType.APPLICATION)
+                .aggregateId(application.getId())
+                .aggregateVersion(application.getVersion())
+                .organizationId(application.getOrganization().getId())
+                .type(type)
+                .payload(json(ApplicationChange.of(application)))
+                .build();
+    }
+
+    private String json(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.enginious.userservice.service.outbox.dto;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.enums.Role;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outbox payload of an application, without its secret.
+ */
+@Value
+@Builder
+public class ApplicationChange {
+
+    long id;
+    long organizationId;
+    String name;
+    String uuid;
+    Role role;
+    long version;
+
+    public static ApplicationChange of(Application application) {
+        return ApplicationChange
+                .builder()
+                .id(application.getId())
+                .organizationId(application.getOrganization().getId())
+                .name(application.getName())
+                .uuid(application.getUuid())
+                .role(application.getRole())
+                .version(application.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.enginious.userservice.service.outbox.dto;
+
+import com.enginious.userservice.model.Organization;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outbox payload of an organization, without its applications, which have events of their own.
+ */
+@Value
+@Builder
+public class OrganizationChange {
+
+    long id;
+    String name;
+    String vatNumber;
+    long version;
+
+    public static OrganizationChange of(Organization organization) {
+        return OrganizationChange
+                .builder()
+                .id(organization.getId())
+                .name(organization.getName())
+                .vatNumber(organization.getVatNumber())
+                .version(organization.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.enginious.userservice.service.user;
+
+import com.enginious.userservice.model.Role;
+import com.enginious.userservice.repository.RoleRepository;
+import com.enginious.userservice.repository.UserRepository;
+import com.enginious.userservice.service.user.dto.ApplicationRoles;
+import com.enginious.userservice.service.user.dto.UserRoles;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Size bounded, time limited caches of the compiled {@link ApplicationRoles} keyed by application id and of the
+ * {@link UserRoles} bitsets keyed by user id. Unknown users are not cached. Hit, miss and eviction counts are published
+ * as the {@code application.roles} and {@code user.roles} cache metrics.
+ */
+@Slf4j
+@Component
+public class UserRoleCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final LoadingCache<Long, ApplicationRoles> applications;
+    private final Cache<Long, UserRoles> users;
+
+    @Autowired
+    public UserRoleCache(@Lazy UserRepository userRepository,
+                         @Lazy RoleRepository roleRepository,
+                         @Value("${roles.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${roles.cache.expire-after-write:PT5M}") Duration expireAfterWrite) {
+        this.userRepository = userRepository;
+        this.applications = Caffeine
+                .newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(applicationId -> ApplicationRoles.of(applicationId, roleRepository.findNamesByApplicationIdOrderByIdAsc(applicationId)));
+        this.users = Caffeine
+                .newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the roles of the user, empty when the user does not exist or does not belong to the given application
+     * of the given organization.
+     */
+    public Optional<UserRoles> get(long userId, long applicationId, long organizationId) {
+        return Optional
+                .ofNullable(users.get(userId, id -> load(id, applicationId, organizationId)))
+                .filter(userRoles -> userRoles.belongsTo(applicationId, organizationId));
+    }
+
+    public void evictUser(long userId) {
+        log.trace("evicting roles of user with id [{}]", userId);
+        users.invalidate(userId);
+    }
+
+    public void evictApplication(long applicationId) {
+        log.trace("evicting roles of application with id [{}]", applicationId);
+        applications.invalidate(applicationId);
+    }
+
+    /**
+     * Evicts the entry once the current transaction commits, so that a concurrent lookup cannot reload the
+     * pre-commit state into the cache. Evicts immediately when no transaction is active.
+     */
+    public void evictUserAfterCommit(long userId) {
+        afterCompletion(() -> evictUser(userId));
+    }
+
+    /**
+     * Evicts the compiled roles of the application once the current transaction commits, see
+     * {@link #evictUserAfterCommit(long)}.
+     */
+    public void evictApplicationAfterCommit(long applicationId) {
+        afterCompletion(() -> evictApplication(applicationId));
+    }
+
+    /**
+     * Evicts the compiled roles of the application together with the roles of all its users once the current
+     * transaction commits, used when the application is deleted. Scans the user entries, which is fine for the
+     * rare deletions.
+     */
+    public void evictApplicationUsersAfterCommit(long applicationId) {
+        afterCompletion(() -> {
+            log.trace("evicting roles of users of application with id [{}]", applicationId);
+            users.asMap().values().removeIf(userRoles -> userRoles.getApplicationId() == applicationId);
+            evictApplication(applicationId);
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, applications, "application.roles");
+        CaffeineCacheMetrics.monitor(registry, users, "user.roles");
+    }
+
+    /**
+     * A role of the user missing from the cached {@link ApplicationRoles} was created after they were compiled, in
+     * which case they are compiled again.
+     */
+    private UserRoles load(long userId, long applicationId, long organizationId) {
+        return userRepository
+                .findOneByApplicationOrganizationIdAndApplicationIdAndId(organizationId, applicationId, userId)
+                .map(user -> {
+                    Set<String> names = user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+                    UserRoles userRoles = UserRoles.of(userId, applicationId, organizationId, applications.get(applicationId), names);
+                    if (userRoles == null) {
+                        evictApplication(applicationId);
+                        userRoles = UserRoles.of(userId, applicationId, organizationId, applications.get(applicationId), names);
+                    }
+                    return userRoles;
+                })
+                .orElse(null);
+    }
+
+    private void afterCompletion(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,240 @@
+package com.enginious.userservice.service.user;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.Role;
+import com.enginious.userservice.model.User;
+import com.enginious.userservice.repository.ApplicationRepository;
+import com.enginious.userservice.repository.RoleRepository;
+import com.enginious.userservice.repository.UserRepository;
+import com.enginious.userservice.service.user.dto.CreateUserRequest;
+import com.enginious.userservice.service.user.dto.LoginRequest;
+import com.enginious.userservice.service.user.dto.UpdateUserRequest;
+import com.enginious.userservice.service.user.exceptions.CreateUserException;
+import com.enginious.userservice.service.user.exceptions.DeleteUserException;
+import com.enginious.userservice.service.user.exceptions.LoginUserException;
+import com.enginious.userservice.service.user.exceptions.ReadUserException;
+import com.enginious.userservice.service.user.exceptions.UpdateUserException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityNotFoundException;
+import javax.validation.Valid;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Passwords are hashed and verified outside of any transaction, so a BCrypt computation never holds a pooled
+ * connection: writes that need a hash compute it first and then run in a {@link TransactionTemplate}.
+ */
+@Slf4j
+@Service
+public class UserService {
+
+    private static final String DUMMY_PASSWORD = "dummy-password";
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final ApplicationRepository applicationRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRoleCache userRoleCache;
+
+    private volatile String dummyHash;
+
+    @Autowired
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, ApplicationRepository applicationRepository, PasswordEncoder passwordEncoder, TransactionTemplate transactionTemplate, UserRoleCache userRoleCache) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.applicationRepository = applicationRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.userRoleCache = userRoleCache;
+    }
+
+    public User createUser(@Valid CreateUserRequest request, Long applicationId, Long organizationId) throws CreateUserException {
+        try {
+            if (log.isTraceEnabled()) {
+                log.trace("creating user with username [{}] for application with id [{}] of organization with id [{}]", request.getUsername(), applicationId, organizationId);
+            }
+            String password = passwordEncoder.encode(request.getPassword());
+            User user = transactionTemplate.execute(status -> {
+                Application application = applicationRepository.findOneByOrganizationIdAndId(organizationId, applicationId).orElseThrow(EntityNotFoundException::new);
+                return userRepository.saveAndFlush(User
+                        .builder()
+                        .application(application)
+                        .username(request.getUsername())
+                        .password(password)
+                        .enabled(request.isEnabled())
+                        .roles(resolveRoles(application, request.getRoles()))
+                        .build());
+            });
+            if (log.isTraceEnabled()) {
+                log.trace("created user with id [{}]", user.getId());
+            }
+            return user;
+        } catch (Exception e) {
+            String msg = String.format("failed to create user with username [%s] for application with id [%09d] of organization with id [%09d]", request.getUsername(), applicationId, organizationId);
+            log.error(msg, e);
+            throw new CreateUserException(msg, e);
+        }
+    }
+
+    @Transactional(readOnly = true, rollbackFor = ReadUserException.class)
+    public User readUser(Long userId, Long applicationId, Long organizationId) throws ReadUserException {
+        try {
+            log.trace("reading user with id [{}] for application with id [{}]", userId, applicationId);
+            User user = findUser(userId, applicationId, organizationId);
+            log.trace("read user with id [{}] for application with id [{}]", userId, applicationId);
+            return user;
+        } catch (Exception e) {
+            String msg = String.format("failed to read user with id [%09d] for application with id [%09d] of organization with id [%09d]", userId, applicationId, organizationId);
+            log.error(msg, e);
+            throw new ReadUserException(msg, e);
+        }
+    }
+
+    @Transactional(readOnly = true, rollbackFor = ReadUserException.class)
+    public List<User> readUser(Long applicationId, Long organizationId) throws ReadUserException {
+        try {
+            log.trace("reading users for application with id [{}]", applicationId);
+            List<User> users = userRepository.findDistinctByApplicationOrganizationIdAndApplicationId(organizationId, applicationId);
+            log.trace("read users for application with id [{}]", applicationId);
+            return users;
+        } catch (Exception e) {
+            String msg = String.format("failed to read users for application with id [%09d] of organization with id [%09d]", applicationId, organizationId);
+            log.error(msg, e);
+            throw new ReadUserException(msg, e);
+        }
+    }
+
+    public User updateUser(@Valid UpdateUserRequest request, Long userId, Long applicationId, Long organizationId) throws UpdateUserException {
+        try {
+            log.trace("updating user with id [{}] for application with id [{}]", userId, applicationId);
+            String password = request.getPassword() == null ? null : passwordEncoder.encode(request.getPassword());
+            User updated = transactionTemplate.execute(status -> {
+                User existing = findUser(userId, applicationId, organizationId);
+                if (password != null) {
+                    existing.setPassword(password);
+                }
+                existing.setEnabled(request.isEnabled());
+                existing.setRoles(resolveRoles(existing.getApplication(), request.getRoles()));
+                userRoleCache.evictUserAfterCommit(userId);
+                return userRepository.saveAndFlush(existing);
+            });
+            log.trace("updated user with id [{}] for application with id [{}]", userId, applicationId);
+            return updated;
+        } catch (Exception e) {
+            String msg = String.format("failed to update user with id [%09d] for application with id [%09d] of organization with id [%09d]", userId, applicationId, organizationId);
+            log.error(msg, e);
+            throw new UpdateUserException(msg, e);
+        }
+    }
+
+    @Transactional(rollbackFor = DeleteUserException.class)
+    public void deleteUser(Long userId, Long applicationId, Long organizationId) throws DeleteUserException {
+        try {
+            log.trace("deleting user with id [{}] for application with id [{}]", userId, applicationId);
+            userRepository.delete(findUser(userId, applicationId, organizationId));
+            userRoleCache.evictUserAfterCommit(userId);
+            log.trace("deleted user with id [{}] for application with id [{}]", userId, applicationId);
+        } catch (Exception e) {
+            String msg = String.format("failed to delete user with id [%09d] for application with id [%09d] of organization with id [%09d]", userId, applicationId, organizationId);
+            log.error(msg, e);
+            throw new DeleteUserException(msg, e);
+        }
+    }
+
+    /**
+     * Answered from the {@link UserRoleCache}: once the roles of a user are cached the check runs no query.
+     */
+    public boolean hasRole(String role, Long userId, Long applicationId, Long organizationId) throws ReadUserException {
+        try {
+            if (log.isTraceEnabled()) {
+                log.trace("checking role [{}] of user with id [{}] for application with id [{}]", role, userId, applicationId);
+            }
+            boolean granted = userRoleCache
+                    .get(userId, applicationId, organizationId)
+                    .orElseThrow(EntityNotFoundException::new)
+                    .has(role);
+            if (log.isTraceEnabled()) {
+                log.trace("checked role [{}] of user with id [{}] for application with id [{}]: [{}]", role, userId, applicationId, granted);
+            }
+            return granted;
+        } catch (Exception e) {
+            String msg = String.format("failed to check role [%s] of user with id [%09d] for application with id [%09d] of organization with id [%09d]", role, userId, applicationId, organizationId);
+            log.error(msg, e);
+            throw new ReadUserException(msg, e);
+        }
+    }
+
+    /**
+     * Resolves the user and its roles with a single query, whose connection is released before the password is
+     * verified. Unknown usernames are verified against a dummy hash, so response times do not reveal which usernames exist.
+     */
+    public User login(@Valid LoginRequest request, Long applicationId, Long organizationId) throws LoginUserException {
+        try {
+            log.trace("verifying credentials of user with username [{}] for application with id [{}]", request.getUsername(), applicationId);
+            Optional<User> user = userRepository.findOneForLogin(organizationId, applicationId, request.getUsername());
+            if (!user.isPresent()) {
+                passwordEncoder.matches(request.getPassword(), dummyHash());
+                throw new BadCredentialsException("Bad credentials");
+            }
+            if (!passwordEncoder.matches(request.getPassword(), user.get().getPassword())) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            if (!user.get().isEnabled()) {
+                throw new DisabledException("User is disabled");
+            }
+            log.trace("verified credentials of user with id [{}]", user.get().getId());
+            return user.get();
+        } catch (Exception e) {
+            String msg = String.format("failed to verify credentials of user with username [%s] for application with id [%09d] of organization with id [%09d]", request.getUsername(), applicationId, organizationId);
+            log.info(msg);
+            throw new LoginUserException(msg, e);
+        }
+    }
+
+    private User findUser(Long userId, Long applicationId, Long organizationId) {
+        return userRepository
+                .findOneByApplicationOrganizationIdAndApplicationIdAndId(organizationId, applicationId, userId)
+                .orElseThrow(EntityNotFoundException::new);
+    }
+
+    /**
+     * Returns the roles of the application with the given names, creating the missing ones. Creating a role extends
+     * the compiled roles of the application, which are then evicted from the {@link UserRoleCache}.
+     */
+    private Set<Role> resolveRoles(Application application, Set<String> names) {
+        Set<Role> roles = new HashSet<>();
+        if (names == null || names.isEmpty()) {
+            return roles;
+        }
+        roles.addAll(roleRepository.findAllByApplicationIdAndNameIn(application.getId(), names));
+        Set<String> existing = roles.stream().map(Role::getName).collect(Collectors.toSet());
+        names
+                .stream()
+                .filter(name -> !existing.contains(name))
+                .map(name -> Role.builder().application(application).name(name).build())
+                .forEach(role -> roles.add(roleRepository.save(role)));
+        if (roles.size() > existing.size()) {
+            userRoleCache.evictApplicationAfterCommit(application.getId());
+        }
+        return roles;
+    }
+
+    private String dummyHash() {
+        if (dummyHash == null) {
+            dummyHash = passwordEncoder.encode(DUMMY_PASSWORD);
+        }
+        return dummyHash;
+    }
+}
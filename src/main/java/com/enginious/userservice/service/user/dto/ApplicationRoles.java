@@ -0,0 +1,50 @@
+package com.enginious.userservice.service.user.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Role names of an application compiled into dense ids, assigned in role creation order. Roles are only ever added
+ * to an application, so the id of a role never changes and a newer compilation only extends an older one.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class ApplicationRoles {
+
+    private final long applicationId;
+    private final Map<String, Integer> ids;
+
+    private ApplicationRoles(long applicationId, Map<String, Integer> ids) {
+        this.applicationId = applicationId;
+        this.ids = ids;
+    }
+
+    /**
+     * Returns the dense id of the role with the given name, or {@code -1} when the application has no such role.
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * @param names the role names of the application, in role creation order
+     */
+    public static ApplicationRoles of(long applicationId, List<String> names) {
+        Map<String, Integer> ids = new HashMap<>(names.size() * 2);
+        for (String name : names) {
+            ids.putIfAbsent(name, ids.size());
+        }
+        return new ApplicationRoles(applicationId, ids);
+    }
+}
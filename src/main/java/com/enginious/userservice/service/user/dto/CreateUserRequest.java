@@ -0,0 +1,36 @@
+package com.enginious.userservice.service.user.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+public class CreateUserRequest {
+
+    @NotNull
+    @Size(min = 2)
+    private String username;
+
+    @NotNull
+    @Size(min = 8)
+    private String password;
+
+    private boolean enabled = true;
+
+    @NotNull
+    private Set<String> roles = new HashSet<>();
+
+    @Builder
+    public CreateUserRequest(@NotNull @Size(min = 2) String username, @NotNull @Size(min = 8) String password, boolean enabled, @NotNull Set<String> roles) {
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled;
+        this.roles = roles;
+    }
+}
@@ -0,0 +1,26 @@
+package com.enginious.userservice.service.user.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@NoArgsConstructor
+public class LoginRequest {
+
+    @NotNull
+    private String username;
+
+    @NotNull
+    @ToString.Exclude
+    private String password;
+
+    @Builder
+    public LoginRequest(@NotNull String username, @NotNull String password) {
+        this.username = username;
+        this.password = password;
+    }
+}
@@ -0,0 +1,33 @@
+package com.enginious.userservice.service.user.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A {@code null} password keeps the current one.
+ */
+@Data
+@NoArgsConstructor
+public class UpdateUserRequest {
+
+    @Size(min = 8)
+    private String password;
+
+    private boolean enabled = true;
+
+    @NotNull
+    private Set<String> roles = new HashSet<>();
+
+    @Builder
+    public UpdateUserRequest(@Size(min = 8) String password, boolean enabled, @NotNull Set<String> roles) {
+        this.password = password;
+        this.enabled = enabled;
+        this.roles = roles;
+    }
+}
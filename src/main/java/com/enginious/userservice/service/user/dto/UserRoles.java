@@ -0,0 +1,62 @@
+package com.enginious.userservice.service.user.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+
+/**
+ * Immutable bitset of the roles of a user, indexed by the dense ids of the {@link ApplicationRoles} it was compiled
+ * against. Checks run in constant time and do not allocate.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class UserRoles {
+
+    private final long userId;
+    private final long applicationId;
+    private final long organizationId;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final ApplicationRoles applicationRoles;
+    private final long[] bits;
+
+    private UserRoles(long userId, long applicationId, long organizationId, ApplicationRoles applicationRoles, long[] bits) {
+        this.userId = userId;
+        this.applicationId = applicationId;
+        this.organizationId = organizationId;
+        this.applicationRoles = applicationRoles;
+        this.bits = bits;
+    }
+
+    public boolean has(int roleId) {
+        int word = roleId >>> 6;
+        return roleId >= 0 && word < bits.length && (bits[word] & (1L << roleId)) != 0;
+    }
+
+    public boolean has(String role) {
+        return has(applicationRoles.idOf(role));
+    }
+
+    public boolean belongsTo(long applicationId, long organizationId) {
+        return this.applicationId == applicationId && this.organizationId == organizationId;
+    }
+
+    /**
+     * Returns {@code null} when one of the names is not a role of the given {@link ApplicationRoles}, which then
+     * needs to be compiled again.
+     */
+    public static UserRoles of(long userId, long applicationId, long organizationId, ApplicationRoles applicationRoles, Collection<String> names) {
+        long[] bits = new long[(applicationRoles.size() + 63) >>> 6];
+        for (String name : names) {
+            int id = applicationRoles.idOf(name);
+            if (id < 0) {
+                return null;
+            }
+            bits[id >>> 6] |= 1L << id;
+        }
+        return new UserRoles(userId, applicationId, organizationId, applicationRoles, bits);
+    }
+}
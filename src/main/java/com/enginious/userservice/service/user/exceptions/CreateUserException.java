@@ -0,0 +1,8 @@
+package com.enginious.userservice.service.user.exceptions;
+
+public class CreateUserException extends Exception {
+
+    public CreateUserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
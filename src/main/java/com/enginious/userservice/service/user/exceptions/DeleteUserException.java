@@ -0,0 +1,8 @@
+package com.enginious.userservice.service.user.exceptions;
+
+public class DeleteUserException extends Exception {
+
+    public DeleteUserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package com.enginious.userservice.service.user.exceptions;
+
+public class LoginUserException extends Exception {
+
+    public LoginUserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package com.enginious.userservice.service.user.exceptions;
+
+public class ReadUserException extends Exception {
+
+    public ReadUserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
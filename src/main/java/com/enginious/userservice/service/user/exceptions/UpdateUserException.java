@@ -0,0 +1,8 @@
+package com.enginious.userservice.service.user.exceptions;
+
+public class UpdateUserException extends Exception {
+
+    public UpdateUserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
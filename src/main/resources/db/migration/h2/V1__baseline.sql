@@ -0,0 +1,32 @@
+-- index plan, by query shape:
+--   organization by id, keyset pages (id > ?)            primary key
+--   organization by vatNumber                            unq_organization_vatNumber
+--   application by organization [and name]              unq_application_organization_name (leading column)
+--   application by id [and organization]                 primary key
+--   application by uuid (application authentication)     unq_application_uuid
+--   role by application [and name in (...)]             unq_role_application_name (leading column)
+--   user by application [and username] (login)          unq_user_application_username (leading column)
+--   user_role by user                                    primary key (leading column)
+--   user_role by role (role removal)                     idx_user_role_role
+
+create sequence application_sequence start with 1 increment by 50;
+create sequence organization_sequence start with 1 increment by 50;
+
+create table organization (id bigint not null, addedAt TIMESTAMP not null, name varchar(255) not null, vatNumber varchar(255) not null, version bigint not null, primary key (id));
+create table application (id bigint not null, addedAt TIMESTAMP not null, name varchar(255) not null, role varchar(255) not null, secret varchar(255) not null, uuid varchar(255) not null, version bigint not null, organization bigint not null, primary key (id));
+create table role (id bigint generated by default as identity, addedAt TIMESTAMP not null, name varchar(255) not null, application bigint not null, primary key (id));
+create table user (id bigint generated by default as identity, addedAt TIMESTAMP not null, enabled boolean not null, password varchar(255) not null, username varchar(255) not null, application bigint not null, primary key (id));
+create table user_role (user bigint not null, role bigint not null, primary key (user, role));
+
+alter table organization add constraint unq_organization_vatNumber unique (vatNumber);
+alter table application add constraint unq_application_organization_name unique (organization, name);
+alter table application add constraint unq_application_uuid unique (uuid);
+alter table role add constraint unq_role_application_name unique (application, name);
+alter table user add constraint unq_user_application_username unique (application, username);
+create index idx_user_role_role on user_role (role);
+
+alter table application add constraint fk_application_organization foreign key (organization) references organization (id);
+alter table role add constraint fk_role_application foreign key (application) references application (id);
+alter table user add constraint fk_user_application foreign key (application) references application (id);
+alter table user_role add constraint fk_user_role_role foreign key (role) references role (id);
+alter table user_role add constraint fk_user_role_user foreign key (user) references user (id);
@@ -0,0 +1,5 @@
+-- outbox_event is read by the relay in id order only, served by the primary key
+
+create sequence outbox_event_sequence start with 1 increment by 50;
+
+create table outbox_event (id bigint not null, aggregateType varchar(32) not null, aggregateId bigint not null, aggregateVersion bigint not null, organizationId bigint not null, type varchar(16) not null, payload varchar(4000) not null, occurredAt TIMESTAMP not null, primary key (id));
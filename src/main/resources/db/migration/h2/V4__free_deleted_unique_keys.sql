@@ -0,0 +1,14 @@
+-- soft deleted rows release their unique keys, so that a deleted name or vatNumber can be reused before the purge:
+-- live is true until deletion and null after, and unique keys never match rows with a null column
+--   organization by vatNumber                            unq_organization_vatNumber (vatNumber, live)
+--   application by organization [and name]              unq_application_organization_name (organization, name, live)
+
+alter table organization add column live boolean default true;
+alter table application add column live boolean default true;
+update organization set live = null where deletedAt is not null;
+update application set live = null where deletedAt is not null;
+
+alter table organization drop constraint unq_organization_vatNumber;
+alter table organization add constraint unq_organization_vatNumber unique (vatNumber, live);
+alter table application drop constraint unq_application_organization_name;
+alter table application add constraint unq_application_organization_name unique (organization, name, live);
@@ -0,0 +1,9 @@
+-- soft delete: rows with a deletedAt are hidden from every entity query and physically deleted by the purge worker
+--   organization by deletedAt (purge)                   idx_organization_deletedAt
+--   application by deletedAt (purge)                    idx_application_deletedAt
+
+alter table organization add column deletedAt TIMESTAMP null;
+alter table application add column deletedAt TIMESTAMP null;
+
+create index idx_organization_deletedAt on organization (deletedAt);
+create index idx_application_deletedAt on application (deletedAt);
@@ -0,0 +1,13 @@
+-- soft deleted rows release their unique keys, so that a deleted name or vatNumber can be reused before the purge:
+-- live is 1 until deletion and null after, and unique keys never match rows with a null column
+--   organization by vatNumber                            unq_organization_vatNumber (vatNumber, live)
+--   application by organization [and name]              unq_application_organization_name (organization, name, live)
+
+alter table organization add column live bit null default 1;
+alter table application add column live bit null default 1;
+update organization set live = null where deletedAt is not null;
+update application set live = null where deletedAt is not null;
+
+-- swapped in a single statement, the application key being the index of fk_application_organization
+alter table organization drop index unq_organization_vatNumber, add constraint unq_organization_vatNumber unique (vatNumber, live);
+alter table application drop index unq_application_organization_name, add constraint unq_application_organization_name unique (organization, name, live);
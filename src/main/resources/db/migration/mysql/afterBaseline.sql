@@ -0,0 +1,52 @@
+-- Brings a schema created by the former scripts/create.sql to the V1 baseline. Flyway only baselines a non-empty schema
+-- without history (spring.flyway.baseline-on-migrate), so this runs once, on such a schema, recorded as version 1,
+-- and V2 onwards then apply as usual:
+--   organization and application ids move from auto_increment to their sequence tables
+--   organization gets vatNumber, in place of the unique name, and both tables get their version column
+--   constraints get the V1 names, unq_organizzation_* and fk_application_organizzation included
+-- The pooled id optimizer hands out the ids from next_val - 49 to next_val, so sequences are seeded 50 past max(id).
+-- Organizations had no VAT number: they get a placeholder, legacy-<id>, to be replaced through the API.
+
+set foreign_key_checks = 0;
+
+create table organization_sequence (next_val bigint) engine=InnoDB;
+insert into organization_sequence select coalesce(max(id), 0) + 50 from organization;
+create table application_sequence (next_val bigint) engine=InnoDB;
+insert into application_sequence select coalesce(max(id), 0) + 50 from application;
+
+alter table organization modify id bigint not null;
+alter table application modify id bigint not null;
+
+alter table organization drop index unq_organizzation_name;
+alter table organization add column vatNumber varchar(255) null;
+update organization set vatNumber = concat('legacy-', id);
+alter table organization modify vatNumber varchar(255) not null;
+alter table organization add constraint unq_organization_vatNumber unique (vatNumber);
+
+alter table organization add column version bigint not null default 0;
+alter table organization alter column version drop default;
+alter table application add column version bigint not null default 0;
+alter table application alter column version drop default;
+
+alter table application drop foreign key fk_application_organizzation;
+alter table application rename index unq_application_organizzation_name to unq_application_organization_name;
+alter table application add constraint fk_application_organization foreign key (organization) references organization (id);
+
+-- create.sql named the foreign keys of role and user alike, so MySQL stopped at the second one: the foreign keys of
+-- user and user_role are only added when missing
+set @fk_user_application = (select if(count(*) = 0, 'alter table user add constraint fk_user_application foreign key (application) references application (id)', 'do 0') from information_schema.table_constraints where constraint_schema = database() and table_name = 'user' and constraint_type = 'FOREIGN KEY');
+prepare stmt from @fk_user_application;
+execute stmt;
+deallocate prepare stmt;
+set @fk_user_role_role = (select if(count(*) = 0, 'alter table user_role add constraint fk_user_role_role foreign key (role) references role (id)', 'do 0') from information_schema.table_constraints where constraint_schema = database() and constraint_name = 'fk_user_role_role');
+prepare stmt from @fk_user_role_role;
+execute stmt;
+deallocate prepare stmt;
+set @fk_user_role_user = (select if(count(*) = 0, 'alter table user_role add constraint fk_user_role_user foreign key (user) references user (id)', 'do 0') from information_schema.table_constraints where constraint_schema = database() and constraint_name = 'fk_user_role_user');
+prepare stmt from @fk_user_role_user;
+execute stmt;
+deallocate prepare stmt;
+
+create index idx_user_role_role on user_role (role);
+
+set foreign_key_checks = 1;
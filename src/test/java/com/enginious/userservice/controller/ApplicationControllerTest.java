@@ -2,26 +2,46 @@ package com.enginious.userservice.controller;
 
 import com.enginious.userservice.model.Application;
 import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.OutboxEvent;
+import com.enginious.userservice.model.enums.AggregateType;
+import com.enginious.userservice.model.enums.ChangeType;
 import com.enginious.userservice.model.enums.Role;
 import com.enginious.userservice.repository.ApplicationRepository;
 import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.repository.OutboxEventRepository;
+import com.enginious.userservice.service.application.ApplicationCredentialCache;
 import com.enginious.userservice.service.application.dto.CreateApplicationRequest;
 import com.enginious.userservice.service.application.dto.UpdateApplicationRequest;
+import com.enginious.userservice.service.organization.PurgeWorker;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.text.MatchesPattern;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,6 +54,18 @@ public class ApplicationControllerTest extends ControllerTest {
     @Autowired
     private ApplicationRepository applicationRepository;
 
+    @Autowired
+    private ApplicationCredentialCache applicationCredentialCache;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PurgeWorker purgeWorker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Application buildTestApplication(Organization organization) {
         return Application
                 .builder()
@@ -55,7 +87,7 @@ public class ApplicationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_no_entities_in_table_should_return_empty_list() throws Exception {
         mockMvc
                 .perform(get("/organization/1/application"))
@@ -65,7 +97,7 @@ public class ApplicationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_one_entity_in_table_should_return_one_element_in_list() throws Exception {
         Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
         mockMvc
@@ -81,7 +113,7 @@ public class ApplicationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_existing_entity_should_pass() throws Exception {
         Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
         mockMvc
@@ -95,9 +127,154 @@ public class ApplicationControllerTest extends ControllerTest {
                 .andExpect(jsonPath("$.organization").doesNotExist());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_list_should_run_constant_number_of_queries() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        for (int i = 0; i < 5; i++) {
+            Application application = buildTestApplication(organization);
+            application.setName(application.getName() + i);
+            applicationRepository.save(application);
+        }
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/" + organization.getId() + "/application"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5))));
+        assertThat(queries).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_existing_entity_should_run_constant_number_of_queries() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/" + application.getOrganization().getId() + "/application/" + application.getId()))
+                .andExpect(status().isOk()));
+        assertThat(queries).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_twice_should_be_served_from_cache() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String path = "/organization/" + application.getOrganization().getId() + "/application";
+        mockMvc.perform(get(path)).andExpect(status().isOk());
+        mockMvc.perform(get(path + "/" + application.getId())).andExpect(status().isOk());
+        long queries = countQueries(() -> {
+            mockMvc.perform(get(path)).andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(1)));
+            mockMvc.perform(get(path + "/" + application.getId())).andExpect(status().isOk());
+        });
+        assertThat(queries).isEqualTo(0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void cached_queries_should_reflect_updates_and_deletes() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String path = "/organization/" + application.getOrganization().getId() + "/application";
+        mockMvc.perform(get(path)).andExpect(jsonPath("$[0].name", equalTo(application.getName())));
+        mockMvc.perform(get(path + "/" + application.getId())).andExpect(jsonPath("$.name", equalTo(application.getName())));
+        mockMvc
+                .perform(
+                        put(path + "/" + application.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateApplicationRequest.builder().name("renamed").role(Role.USER).build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(path)).andExpect(jsonPath("$[0].name", equalTo("renamed")));
+        mockMvc.perform(get(path + "/" + application.getId())).andExpect(jsonPath("$.name", equalTo("renamed")));
+        mockMvc.perform(delete(path + "/" + application.getId())).andExpect(status().isOk());
+        mockMvc.perform(get(path)).andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get(path + "/" + application.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_with_matching_etag_should_return_not_modified() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String path = "/organization/" + application.getOrganization().getId() + "/application/" + application.getId();
+        String etag = mockMvc
+                .perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc.perform(get(path).header("If-None-Match", etag)).andExpect(status().isNotModified());
+        long queries = countQueries(() -> mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string("")));
+        assertThat(queries).isEqualTo(0);
+        mockMvc
+                .perform(
+                        put(path)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateApplicationRequest.builder().name("renamed").role(Role.USER).build())))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.name", equalTo("renamed")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void list_etag_should_change_when_application_is_created() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        String path = "/organization/" + organization.getId() + "/application";
+        String etag = mockMvc
+                .perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc
+                .perform(
+                        post(path)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateApplicationRequest.builder().name("created").role(Role.USER).build())))
+                .andExpect(status().isCreated());
+        mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void list_etag_should_change_when_application_is_deleted() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        Application application = applicationRepository.save(buildTestApplication(organization));
+        String path = "/organization/" + organization.getId() + "/application";
+        String etag = mockMvc
+                .perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        long queries = countQueries(() -> mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isNotModified()));
+        assertThat(queries).isEqualTo(0);
+        mockMvc
+                .perform(delete(path + "/" + application.getId()))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get(path).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_not_existing_entity_should_return_not_found() throws Exception {
         mockMvc
                 .perform(get("/organization/0/application/0"))
@@ -106,7 +283,7 @@ public class ApplicationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void post_valid_entity_should_pass() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         Application application = buildTestApplication(organization);
@@ -125,9 +302,90 @@ public class ApplicationControllerTest extends ControllerTest {
                 .andExpect(header().string("location", new MatchesPattern(Pattern.compile("^http://.+/application/\\d+$"))));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_bulk_should_report_name_conflicts_per_item() throws Exception {
+        Application existing = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        long organizationId = existing.getOrganization().getId();
+        String body = "["
+                + json(CreateApplicationRequest.builder().name("first").role(Role.USER).build()) + ","
+                + json(CreateApplicationRequest.builder().name(existing.getName()).role(Role.USER).build()) + ","
+                + json(CreateApplicationRequest.builder().name("first").role(Role.ADMIN).build()) + ","
+                + json(CreateApplicationRequest.builder().name("x").role(Role.USER).build()) + ","
+                + json(CreateApplicationRequest.builder().name("second").role(Role.ADMIN).build())
+                + "]";
+        mockMvc
+                .perform(
+                        post("/organization/" + organizationId + "/application/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", equalTo(2)))
+                .andExpect(jsonPath("$.failed", equalTo(3)))
+                .andExpect(jsonPath("$.items[0].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.items[1].status", equalTo("CONFLICT")))
+                .andExpect(jsonPath("$.items[2].status", equalTo("CONFLICT")))
+                .andExpect(jsonPath("$.items[3].status", equalTo("INVALID")))
+                .andExpect(jsonPath("$.items[4].status", equalTo("CREATED")));
+        assertThat(applicationRepository.findAllByOrganizationId(organizationId)).hasSize(3);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_bulk_should_report_name_conflicts_ignoring_case() throws Exception {
+        Application existing = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        long organizationId = existing.getOrganization().getId();
+        String body = "["
+                + json(CreateApplicationRequest.builder().name("Foo").role(Role.USER).build()) + ","
+                + json(CreateApplicationRequest.builder().name("foo").role(Role.USER).build()) + ","
+                + json(CreateApplicationRequest.builder().name(existing.getName().toUpperCase()).role(Role.USER).build())
+                + "]";
+        mockMvc
+                .perform(
+                        post("/organization/" + organizationId + "/application/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", equalTo(1)))
+                .andExpect(jsonPath("$.items[0].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.items[1].status", equalTo("CONFLICT")))
+                .andExpect(jsonPath("$.items[2].status", equalTo("CONFLICT")));
+        assertThat(applicationRepository.findAllByOrganizationId(organizationId)).hasSize(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_bulk_should_reuse_names_of_deleted_applications() throws Exception {
+        Application deleted = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        long organizationId = deleted.getOrganization().getId();
+        mockMvc
+                .perform(delete("/organization/" + organizationId + "/application/" + deleted.getId()))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(
+                        post("/organization/" + organizationId + "/application/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[" + json(CreateApplicationRequest.builder().name(deleted.getName()).role(Role.USER).build()) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", equalTo(1)))
+                .andExpect(jsonPath("$.items[0].status", equalTo("CREATED")));
+        assertThat(applicationRepository.findAllByOrganizationId(organizationId)).extracting(Application::getName).containsExactly(deleted.getName());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_bulk_not_existing_organization_should_return_not_found() throws Exception {
+        mockMvc
+                .perform(
+                        post("/organization/" + 0 + "/application/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void put_valid_entity_should_pass() throws Exception {
         Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
         UpdateApplicationRequest request = UpdateApplicationRequest
@@ -147,9 +405,65 @@ public class ApplicationControllerTest extends ControllerTest {
         assertThat(updated.getRole()).isEqualTo(request.getRole());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void put_with_stale_if_match_should_return_precondition_failed() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String path = "/organization/" + application.getOrganization().getId() + "/application/" + application.getId();
+        mockMvc
+                .perform(
+                        put(path)
+                                .header("If-Match", "\"0\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateApplicationRequest.builder().name("renamed").role(Role.USER).build())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc
+                .perform(
+                        put(path)
+                                .header("If-Match", "\"0\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateApplicationRequest.builder().name("stale").role(Role.USER).build())))
+                .andExpect(status().isPreconditionFailed());
+        assertThat(applicationRepository.findById(application.getId()).orElseThrow(EntityNotFoundException::new).getName()).isEqualTo("renamed");
+    }
+
+    @Test
+    public void concurrent_posts_should_all_increment_organization_version() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Callable<Integer>> posts = IntStream
+                    .range(0, writers)
+                    .mapToObj(i -> (Callable<Integer>) () -> mockMvc
+                            .perform(
+                                    post("/organization/" + organization.getId() + "/application")
+                                            .with(user("admin").roles("ADMIN"))
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .content(json(CreateApplicationRequest.builder().name("application" + i).role(Role.USER).build())))
+                            .andReturn()
+                            .getResponse()
+                            .getStatus())
+                    .collect(Collectors.toList());
+            List<Integer> statuses = executor.invokeAll(posts).stream().map(f -> {
+                try {
+                    return f.get();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).collect(Collectors.toList());
+            assertThat(statuses).containsOnly(201);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(applicationRepository.findAllByOrganizationId(organization.getId())).hasSize(writers);
+        assertThat(organizationRepository.findById(organization.getId()).orElseThrow(EntityNotFoundException::new).getVersion()).isEqualTo(writers);
+    }
+
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void put_not_existing_entity_should_return_not_found() throws Exception {
         Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
         UpdateApplicationRequest request = UpdateApplicationRequest
@@ -167,19 +481,58 @@ public class ApplicationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void delete_existing_entity_should_pass() throws Exception {
         Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
         mockMvc
                 .perform(
                         delete("/organization/" + application.getOrganization().getId() + "/application/" + application.getId()))
                 .andExpect(status().isOk());
-        assertThat(organizationRepository.findById(application.getId()).isPresent()).isFalse();
+        assertThat(applicationRepository.findById(application.getId()).isPresent()).isFalse();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_should_hide_application_and_release_name_until_purged() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String path = "/organization/" + application.getOrganization().getId() + "/application";
+        mockMvc
+                .perform(get("/organization/" + application.getOrganization().getId()))
+                .andExpect(jsonPath("$.applications", hasSize(1)));
+        mockMvc
+                .perform(
+                        delete(path + "/" + application.getId()))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get("/organization/" + application.getOrganization().getId()))
+                .andExpect(jsonPath("$.applications", hasSize(0)));
+        mockMvc
+                .perform(get(path + "/" + application.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc
+                .perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        assertThat(applicationRepository.findDeletedIds(PageRequest.of(0, 10))).containsExactly(application.getId());
+        CreateApplicationRequest request = CreateApplicationRequest.builder().name(application.getName()).role(application.getRole()).build();
+        mockMvc
+                .perform(
+                        post(path)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isCreated());
+        assertThat(purgeWorker.purge())
+                .extracting(OrganizationDeletion::getStatus, OrganizationDeletion::getApplications)
+                .containsExactly(tuple(OrganizationDeletion.Status.COMPLETED, 1L));
+        assertThat(applicationRepository.findDeletedIds(PageRequest.of(0, 10))).isEmpty();
+        assertThat(applicationRepository.findAllByOrganizationId(application.getOrganization().getId()))
+                .extracting(Application::getName)
+                .containsExactly(application.getName());
     }
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void delete_not_existing_entity_should_return_not_found() throws Exception {
         mockMvc
                 .perform(
@@ -187,8 +540,199 @@ public class ApplicationControllerTest extends ControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void get_with_application_credentials_should_pass_and_hit_cache() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        long hits = applicationCredentialCache.hitCount();
+        for (int i = 0; i < 2; i++) {
+            mockMvc
+                    .perform(get("/organization/" + application.getOrganization().getId() + "/application/" + application.getId())
+                            .with(httpBasic(application.getUuid(), application.getSecret())))
+                    .andExpect(status().isOk());
+        }
+        assertThat(applicationCredentialCache.hitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    public void get_with_wrong_application_secret_should_return_unauthorized() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        mockMvc
+                .perform(get("/organization/" + application.getOrganization().getId() + "/application")
+                        .with(httpBasic(application.getUuid(), StringUtils.reverse(application.getSecret()))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void application_credentials_should_not_use_password_hashing() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String path = "/organization/" + application.getOrganization().getId() + "/application/" + application.getId();
+        double hashes = passwordHashes();
+        mockMvc
+                .perform(get(path).with(httpBasic(application.getUuid(), application.getSecret())))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get(path).with(httpBasic(application.getUuid(), StringUtils.reverse(application.getSecret()))))
+                .andExpect(status().isUnauthorized());
+        mockMvc
+                .perform(get(path).with(httpBasic(UUID.randomUUID().toString(), application.getSecret())))
+                .andExpect(status().isUnauthorized());
+        assertThat(passwordHashes()).isEqualTo(hashes);
+    }
+
+    private double passwordHashes() {
+        return meterRegistry.get("executor.completed").tag("name", "password.hashing").functionCounter().count();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_existing_entity_should_evict_application_credentials() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        assertThat(applicationCredentialCache.get(application.getUuid()).isPresent()).isTrue();
+        mockMvc
+                .perform(
+                        delete("/organization/" + application.getOrganization().getId() + "/application/" + application.getId()))
+                .andExpect(status().isOk());
+        assertThat(applicationCredentialCache.get(application.getUuid()).isPresent()).isFalse();
+    }
+
+    @Test
+    public void application_token_should_authenticate_requests() throws Exception {
+        Application application = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        String response = mockMvc
+                .perform(post("/token").with(httpBasic(application.getUuid(), application.getSecret())))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String token = objectMapper.readTree(response).get("accessToken").asText();
+        long misses = applicationCredentialCache.missCount();
+        long hits = applicationCredentialCache.hitCount();
+        mockMvc
+                .perform(get("/token").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sub", equalTo(application.getUuid())))
+                .andExpect(jsonPath("$.typ", equalTo("application")))
+                .andExpect(jsonPath("$.org", equalTo((int) application.getOrganization().getId())))
+                .andExpect(jsonPath("$.app", equalTo((int) application.getId())));
+        mockMvc
+                .perform(get("/organization/" + application.getOrganization().getId() + "/application/" + application.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertThat(applicationCredentialCache.missCount()).isEqualTo(misses);
+        assertThat(applicationCredentialCache.hitCount()).isEqualTo(hits);
+    }
+
+    @Test
+    public void application_credentials_should_only_reach_own_application() throws Exception {
+        Application own = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        Application other = applicationRepository.save(buildTestApplication(organizationRepository.save(Organization.builder().name("other").vatNumber("7654321").build())));
+        String ownPath = "/organization/" + own.getOrganization().getId() + "/application/" + own.getId();
+        String otherPath = "/organization/" + other.getOrganization().getId() + "/application/" + other.getId();
+        mockMvc.perform(get(ownPath).with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isOk());
+        mockMvc.perform(get(ownPath + "/user").with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isOk());
+        mockMvc.perform(get(otherPath).with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(get(otherPath + "/user").with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(delete(otherPath).with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(get("/organization/" + own.getOrganization().getId() + "/application/" + other.getId()).with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(get("/organization/" + own.getOrganization().getId() + "/application").with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(get("/organization/" + other.getOrganization().getId()).with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(delete("/organization/" + own.getOrganization().getId()).with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        mockMvc.perform(get("/organization").with(httpBasic(own.getUuid(), own.getSecret()))).andExpect(status().isForbidden());
+        assertThat(applicationRepository.existsById(other.getId())).isTrue();
+    }
+
+    @Test
+    public void application_token_should_not_reach_other_organization() throws Exception {
+        Application own = applicationRepository.save(buildTestApplication(organizationRepository.save(buildTestOrganization())));
+        Application other = applicationRepository.save(buildTestApplication(organizationRepository.save(Organization.builder().name("other").vatNumber("7654321").build())));
+        String token = objectMapper.readTree(mockMvc
+                .perform(post("/token").with(httpBasic(own.getUuid(), own.getSecret())))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()).get("accessToken").asText();
+        mockMvc
+                .perform(get("/organization/" + other.getOrganization().getId() + "/application/" + other.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc
+                .perform(get("/organization/" + other.getOrganization().getId() + "/application").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void create_and_delete_should_append_change_events_without_secret() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        mockMvc
+                .perform(
+                        post("/organization/" + organization.getId() + "/application")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateApplicationRequest.builder().name("UserService").role(Role.USER).build())))
+                .andExpect(status().isCreated());
+        long applicationId = applicationRepository.findAllByOrganizationId(organization.getId()).get(0).getId();
+        mockMvc
+                .perform(
+                        delete("/organization/" + organization.getId() + "/application/" + applicationId))
+                .andExpect(status().isOk());
+        List<OutboxEvent> events = outboxEventRepository.findAll().stream().sorted(Comparator.comparingLong(OutboxEvent::getId)).collect(Collectors.toList());
+        assertThat(events).extracting(OutboxEvent::getType).containsExactly(ChangeType.CREATED, ChangeType.DELETED);
+        assertThat(events).allMatch(event -> event.getAggregateType() == AggregateType.APPLICATION
+                && event.getAggregateId() == applicationId
+                && event.getOrganizationId() == organization.getId());
+        assertThat(objectMapper.readTree(events.get(0).getPayload()).has("secret")).isFalse();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void watch_should_send_snapshot_then_committed_changes() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        Application existing = applicationRepository.save(buildTestApplication(organization));
+        MvcResult watch = mockMvc
+                .perform(get("/organization/" + organization.getId() + "/application/_watch"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(watch.getResponse().getContentAsString())
+                .startsWith("id:0\nevent:snapshot\ndata:[")
+                .contains("\"id\":" + existing.getId())
+                .doesNotContain(existing.getSecret());
+        mockMvc
+                .perform(
+                        post("/organization/" + organization.getId() + "/application")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateApplicationRequest.builder().name("watched").role(Role.USER).build())))
+                .andExpect(status().isCreated());
+        mockMvc
+                .perform(delete("/organization/" + organization.getId() + "/application/" + existing.getId()))
+                .andExpect(status().isOk());
+        String events = awaitContent(watch, "event:deleted");
+        assertThat(events.indexOf("id:1\nevent:created\ndata:{")).isPositive();
+        assertThat(events.indexOf("\"name\":\"watched\"")).isGreaterThan(events.indexOf("event:created"));
+        assertThat(events.indexOf("id:2\nevent:deleted\ndata:{\"id\":" + existing.getId())).isGreaterThan(events.indexOf("event:created"));
+        assertThat(events).doesNotContain("\"secret\"");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void watch_not_existing_organization_should_return_not_found() throws Exception {
+        mockMvc
+                .perform(get("/organization/" + 0 + "/application/_watch"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
     @Override
     protected void doCleanup() {
+        purgeDeleted();
+        outboxEventRepository.deleteAll();
         applicationRepository.deleteAll();
         organizationRepository.deleteAll();
     }
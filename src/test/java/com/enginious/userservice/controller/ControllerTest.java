@@ -1,8 +1,15 @@
 package com.enginious.userservice.controller;
 
+import com.enginious.userservice.filters.AccessLogFilter;
+import com.enginious.userservice.repository.ApplicationRepository;
+import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.service.organization.OrganizationDeleter;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +17,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import javax.persistence.EntityManagerFactory;
+
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 
 @SpringBootTest
@@ -38,10 +48,26 @@ public abstract class ControllerTest {
     @Autowired
     protected ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccessLogFilter accessLogFilter;
+
+    @Autowired
+    private OrganizationDeleter organizationDeleter;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
     @BeforeEach
     public void setup() {
         mockMvc = MockMvcBuilders
                 .webAppContextSetup(context)
+                .addFilters(accessLogFilter)
                 .apply(springSecurity())
                 .build();
     }
@@ -51,10 +77,39 @@ public abstract class ControllerTest {
         doCleanup();
     }
 
+    /**
+     * Purges the soft deleted applications and organizations synchronously, soft deleted rows being invisible to the
+     * repository cleanups.
+     */
+    protected void purgeDeleted() {
+        applicationRepository.findDeletedIds(PageRequest.of(0, 100)).forEach(organizationDeleter::purgeApplication);
+        organizationRepository.findDeletedIds(PageRequest.of(0, 100)).forEach(id -> organizationDeleter.purge(id, new OrganizationDeletion(id)));
+    }
+
     protected String json(Object o) throws JsonProcessingException {
         return objectMapper.writeValueAsString(o);
     }
 
+    /**
+     * Returns the number of JDBC statements prepared while running the given block, as recorded by Hibernate statistics.
+     */
+    protected long countQueries(Block block) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        block.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Returns the number of persistence context flushes run while executing the given block, as recorded by Hibernate statistics.
+     */
+    protected long countFlushes(Block block) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        block.run();
+        return statistics.getFlushCount();
+    }
+
     protected void notImplemented() {
         throw new UnsupportedOperationException("not implemented test");
     }
@@ -82,4 +137,10 @@ public abstract class ControllerTest {
     public abstract void delete_not_existing_entity_should_return_not_found() throws Exception;
 
     protected abstract void doCleanup();
+
+    @FunctionalInterface
+    protected interface Block {
+
+        void run() throws Exception;
+    }
 }
@@ -1,31 +1,118 @@
 package com.enginious.userservice.controller;
 
+import com.enginious.userservice.filters.AccessLogFilter;
+import com.enginious.userservice.model.Application;
 import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.OutboxEvent;
+import com.enginious.userservice.model.User;
+import com.enginious.userservice.model.enums.AggregateType;
+import com.enginious.userservice.model.enums.ChangeType;
+import com.enginious.userservice.model.enums.Role;
+import com.enginious.userservice.repository.ApplicationRepository;
 import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.repository.OutboxEventRepository;
+import com.enginious.userservice.repository.RoleRepository;
+import com.enginious.userservice.repository.UserRepository;
+import com.enginious.userservice.security.TokenProperties;
+import com.enginious.userservice.security.TokenRevocationList;
+import com.enginious.userservice.security.TokenService;
+import com.enginious.userservice.security.VerifiedCredentialsCache;
+import com.enginious.userservice.security.dto.TokenClaims;
+import com.enginious.userservice.service.organization.OrganizationService;
+import com.enginious.userservice.service.organization.PurgeWorker;
 import com.enginious.userservice.service.organization.dto.CreateOrganizationRequest;
+import com.enginious.userservice.service.organization.dto.OrganizationDeletion;
 import com.enginious.userservice.service.organization.dto.UpdateOrganizationRequest;
+import com.enginious.userservice.service.outbox.OutboxRelay;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.text.MatchesPattern;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.AdditionalAnswers;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @Slf4j
+@ExtendWith(OutputCaptureExtension.class)
 public class OrganizationControllerTest extends ControllerTest {
 
     @Autowired
     private OrganizationRepository organizationRepository;
 
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OrganizationService organizationService;
+
+    @Autowired
+    private PurgeWorker purgeWorker;
+
+    @Autowired
+    private VerifiedCredentialsCache verifiedCredentialsCache;
+
+    @Autowired
+    private TokenProperties tokenProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Organization buildTestOrganization() {
         return Organization
                 .builder()
@@ -34,8 +121,248 @@ public class OrganizationControllerTest extends ControllerTest {
                 .build();
     }
 
+    private Organization saveTestOrganizationWithUsers(int applications, int users) {
+        return transactionTemplate.execute(status -> {
+            Organization organization = saveTestOrganizationWithApplications(0, applications);
+            applicationRepository.findAllByOrganizationId(organization.getId()).forEach(application -> {
+                Set<com.enginious.userservice.model.Role> roles = Stream
+                        .of("reader", "writer")
+                        .map(name -> roleRepository.save(com.enginious.userservice.model.Role.builder().application(application).name(name).build()))
+                        .collect(Collectors.toSet());
+                for (int i = 0; i < users; i++) {
+                    userRepository.save(User.builder().application(application).username("user" + i).password("password").enabled(true).roles(roles).build());
+                }
+            });
+            return organization;
+        });
+    }
+
+    private Organization saveTestOrganizationWithApplications(int index, int applications) {
+        Organization organization = organizationRepository.save(Organization
+                .builder()
+                .name("enginious" + index)
+                .vatNumber(String.format("%09d", index))
+                .build());
+        for (int i = 0; i < applications; i++) {
+            applicationRepository.save(Application
+                    .builder()
+                    .name("application" + i)
+                    .uuid(UUID.randomUUID().toString())
+                    .secret("secret")
+                    .role(Role.USER)
+                    .organization(organization)
+                    .build());
+        }
+        return organization;
+    }
+
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
+    public void get_list_should_run_constant_number_of_queries() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            saveTestOrganizationWithApplications(i, 3);
+        }
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[4].applications", hasSize(3))));
+        assertThat(queries).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_list_should_not_flush_persistence_context() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            saveTestOrganizationWithApplications(i, 3);
+        }
+        long flushes = countFlushes(() -> mockMvc
+                .perform(get("/organization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5))));
+        assertThat(flushes).isZero();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_page_should_run_constant_number_of_queries() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            saveTestOrganizationWithApplications(i, 3);
+        }
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/_page").param("limit", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.organizations", hasSize(4)))
+                .andExpect(jsonPath("$.organizations[3].applications", hasSize(3))));
+        assertThat(queries).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_existing_entity_should_run_constant_number_of_queries() throws Exception {
+        Organization organization = saveTestOrganizationWithApplications(0, 3);
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applications", hasSize(3))));
+        assertThat(queries).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_existing_entity_twice_should_be_served_from_cache() throws Exception {
+        Organization organization = saveTestOrganizationWithApplications(0, 3);
+        mockMvc.perform(get("/organization/" + organization.getId())).andExpect(status().isOk());
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applications", hasSize(3))));
+        assertThat(queries).isEqualTo(0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void cached_entity_should_reflect_application_changes() throws Exception {
+        Organization organization = saveTestOrganizationWithApplications(0, 1);
+        mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andExpect(jsonPath("$.applications", hasSize(1)));
+        mockMvc
+                .perform(
+                        post("/organization/" + organization.getId() + "/application")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"name\":\"second\",\"role\":\"USER\"}"))
+                .andExpect(status().isCreated());
+        mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andExpect(jsonPath("$.applications", hasSize(2)));
+        long applicationId = applicationRepository.findAllByOrganizationId(organization.getId()).get(0).getId();
+        mockMvc
+                .perform(delete("/organization/" + organization.getId() + "/application/" + applicationId))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andExpect(jsonPath("$.applications", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void deletes_should_keep_other_organizations_cached() throws Exception {
+        Organization deleted = saveTestOrganizationWithApplications(0, 2);
+        Organization other = saveTestOrganizationWithApplications(1, 3);
+        mockMvc.perform(get("/organization/" + other.getId())).andExpect(status().isOk());
+        long applicationId = applicationRepository.findAllByOrganizationId(deleted.getId()).get(0).getId();
+        mockMvc
+                .perform(delete("/organization/" + deleted.getId() + "/application/" + applicationId))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(delete("/organization/" + deleted.getId()))
+                .andExpect(status().isOk());
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/" + other.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applications", hasSize(3))));
+        assertThat(queries).isEqualTo(0);
+        mockMvc.perform(get("/organization/" + deleted.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_with_matching_etag_should_return_not_modified() throws Exception {
+        Organization organization = saveTestOrganizationWithApplications(0, 3);
+        String etag = mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc
+                .perform(get("/organization/" + organization.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        long queries = countQueries(() -> mockMvc
+                .perform(get("/organization/" + organization.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string("")));
+        assertThat(queries).isEqualTo(0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void etag_should_change_with_application_changes() throws Exception {
+        Organization organization = saveTestOrganizationWithApplications(0, 1);
+        String etag = mockMvc
+                .perform(get("/organization/" + organization.getId()))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc
+                .perform(
+                        post("/organization/" + organization.getId() + "/application")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"name\":\"second\",\"role\":\"USER\"}"))
+                .andExpect(status().isCreated());
+        mockMvc
+                .perform(get("/organization/" + organization.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.applications", hasSize(2)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_should_echo_correlation_id() throws Exception {
+        mockMvc.perform(get("/organization").header(AccessLogFilter.CORRELATION_ID_HEADER, "correlation-id"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(AccessLogFilter.CORRELATION_ID_HEADER, "correlation-id"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_should_replace_invalid_correlation_id() throws Exception {
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        Stream.of(StringUtils.repeat('a', AccessLogFilter.MAX_CORRELATION_ID_LENGTH + 1), "correlation id", "correlation\u00e9id").forEach(correlationId -> {
+            try {
+                mockMvc.perform(get("/organization")
+                        .header(AccessLogFilter.CORRELATION_ID_HEADER, correlationId)
+                        .header(AccessLogFilter.TRACEPARENT_HEADER, "00-" + traceId + "-00f067aa0ba902b7-01"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string(AccessLogFilter.CORRELATION_ID_HEADER, traceId));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void stream_should_be_logged_on_completion(CapturedOutput output) throws Exception {
+        organizationRepository.save(buildTestOrganization());
+        MvcResult result = mockMvc
+                .perform(get("/organization/_stream").header(AccessLogFilter.CORRELATION_ID_HEADER, "stream-correlation-id"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(output.getOut()).doesNotContain("correlation id [stream-correlation-id]");
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertThat(output.getOut()).contains("[GET] {path: /organization/_stream} status [200]");
+        assertThat(output.getOut()).doesNotContain("status [async]");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_should_continue_incoming_trace() throws Exception {
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        mockMvc.perform(get("/organization").header(AccessLogFilter.TRACEPARENT_HEADER, "00-" + traceId + "-00f067aa0ba902b7-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(AccessLogFilter.CORRELATION_ID_HEADER, traceId))
+                .andExpect(header().string(AccessLogFilter.TRACEPARENT_HEADER, MatchesPattern.matchesPattern("^00-" + traceId + "-(?!00f067aa0ba902b7)[0-9a-f]{16}-01$")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
     public void post_null_vatNumber_should_return_bad_request() throws Exception {
         Organization organization = buildTestOrganization();
         CreateOrganizationRequest request = CreateOrganizationRequest
@@ -51,7 +378,7 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void post_invalid_size_vatNumber_should_return_bad_request() throws Exception {
         Organization organization = buildTestOrganization();
         CreateOrganizationRequest request = CreateOrganizationRequest
@@ -68,7 +395,7 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void post_duplicate_vatNumber_should_return_bad_request() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         CreateOrganizationRequest request = CreateOrganizationRequest
@@ -86,7 +413,52 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
+    public void post_bulk_json_array_should_report_each_row() throws Exception {
+        Organization existing = organizationRepository.save(buildTestOrganization());
+        String body = "["
+                + json(CreateOrganizationRequest.builder().name("first").vatNumber("000000001").build()) + ","
+                + json(CreateOrganizationRequest.builder().name("x").vatNumber("000000002").build()) + ","
+                + json(CreateOrganizationRequest.builder().name("third").vatNumber(existing.getVatNumber()).build()) + ","
+                + "{\"name\": {\"not\": \"a string\"}, \"vatNumber\": \"000000004\"},"
+                + json(CreateOrganizationRequest.builder().name("fifth").vatNumber("000000005").build())
+                + "]";
+        mockMvc
+                .perform(
+                        post("/organization/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", equalTo(2)))
+                .andExpect(jsonPath("$.failed", equalTo(3)))
+                .andExpect(jsonPath("$.items[0].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.items[0].id", notNullValue()))
+                .andExpect(jsonPath("$.items[1].status", equalTo("INVALID")))
+                .andExpect(jsonPath("$.items[2].status", equalTo("CONFLICT")))
+                .andExpect(jsonPath("$.items[3].status", equalTo("INVALID")))
+                .andExpect(jsonPath("$.items[4].status", equalTo("CREATED")));
+        assertThat(organizationRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_bulk_ndjson_should_pass() throws Exception {
+        String body = json(CreateOrganizationRequest.builder().name("first").vatNumber("000000001").build()) + "\n"
+                + json(CreateOrganizationRequest.builder().name("second").vatNumber("000000002").build()) + "\n";
+        mockMvc
+                .perform(
+                        post("/organization/_bulk")
+                                .contentType(OrganizationController.APPLICATION_NDJSON_VALUE)
+                                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", equalTo(2)))
+                .andExpect(jsonPath("$.failed", equalTo(0)))
+                .andExpect(jsonPath("$.items", hasSize(2)));
+        assertThat(organizationRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
     public void put_null_vatNumber_should_return_bad_request() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         UpdateOrganizationRequest request = UpdateOrganizationRequest
@@ -102,7 +474,123 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
+    public void put_with_matching_if_match_should_pass_and_return_new_etag() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        mockMvc
+                .perform(
+                        put("/organization/" + organization.getId())
+                                .header("If-Match", "\"0\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateOrganizationRequest.builder().name("renamed").vatNumber("987654321").build())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        assertThat(organizationRepository.findById(organization.getId()).orElseThrow(EntityNotFoundException::new).getName()).isEqualTo("renamed");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void put_with_stale_if_match_should_return_precondition_failed() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        UpdateOrganizationRequest request = UpdateOrganizationRequest.builder().name("renamed").vatNumber("987654321").build();
+        mockMvc
+                .perform(
+                        put("/organization/" + organization.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(
+                        put("/organization/" + organization.getId())
+                                .header("If-Match", "\"0\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateOrganizationRequest.builder().name("stale").vatNumber("987654321").build())))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message", equalTo("Precondition failed")));
+        assertThat(organizationRepository.findById(organization.getId()).orElseThrow(EntityNotFoundException::new).getName()).isEqualTo("renamed");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void put_with_malformed_if_match_should_return_bad_request() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        mockMvc
+                .perform(
+                        put("/organization/" + organization.getId())
+                                .header("If-Match", "W/\"0\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateOrganizationRequest.builder().name("renamed").vatNumber("987654321").build())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void concurrent_puts_should_not_lose_writes() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Callable<Integer>> puts = IntStream
+                    .range(0, writers)
+                    .mapToObj(i -> (Callable<Integer>) () -> mockMvc
+                            .perform(
+                                    put("/organization/" + organization.getId())
+                                            .with(user("admin").roles("ADMIN"))
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .content(json(UpdateOrganizationRequest.builder().name("writer" + i).vatNumber("987654321").build())))
+                            .andReturn()
+                            .getResponse()
+                            .getStatus())
+                    .collect(Collectors.toList());
+            List<Integer> statuses = executor.invokeAll(puts).stream().map(f -> {
+                try {
+                    return f.get();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).collect(Collectors.toList());
+            assertThat(statuses).containsOnly(200);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(organizationRepository.findById(organization.getId()).orElseThrow(EntityNotFoundException::new).getVersion()).isEqualTo(writers);
+    }
+
+    @Test
+    public void put_losing_optimistic_lock_race_should_be_retried() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> put = transactionTemplate.execute(status -> {
+                Organization concurrent = organizationRepository.findById(organization.getId()).orElseThrow(EntityNotFoundException::new);
+                concurrent.setName("concurrent");
+                organizationRepository.saveAndFlush(concurrent);
+                Future<Integer> pending = executor.submit(() -> mockMvc
+                        .perform(
+                                put("/organization/" + organization.getId())
+                                        .with(user("admin").roles("ADMIN"))
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(json(UpdateOrganizationRequest.builder().name("retried").vatNumber("987654321").build())))
+                        .andReturn()
+                        .getResponse()
+                        .getStatus());
+                try {
+                    Thread.sleep(800);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return pending;
+            });
+            assertThat(put.get()).isEqualTo(200);
+        } finally {
+            executor.shutdown();
+        }
+        Organization updated = organizationRepository.findById(organization.getId()).orElseThrow(EntityNotFoundException::new);
+        assertThat(updated.getName()).isEqualTo("retried");
+        assertThat(updated.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
     public void put_invalid_size_vatNumber_should_return_bad_request() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         UpdateOrganizationRequest request = UpdateOrganizationRequest
@@ -119,7 +607,7 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void post_null_name_should_return_bad_request() throws Exception {
         Organization organization = buildTestOrganization();
         CreateOrganizationRequest request = CreateOrganizationRequest
@@ -135,7 +623,7 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void post_invalid_size_name_should_return_bad_request() throws Exception {
         Organization organization = buildTestOrganization();
         CreateOrganizationRequest request = CreateOrganizationRequest
@@ -152,7 +640,7 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void put_null_name_should_return_bad_request() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         UpdateOrganizationRequest request = UpdateOrganizationRequest
@@ -168,7 +656,7 @@ public class OrganizationControllerTest extends ControllerTest {
     }
 
     @Test
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void put_invalid_size_name_should_return_bad_request() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         UpdateOrganizationRequest request = UpdateOrganizationRequest
@@ -186,7 +674,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_no_entities_in_table_should_return_empty_list() throws Exception {
         mockMvc
                 .perform(get("/organization"))
@@ -196,7 +684,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_one_entity_in_table_should_return_one_element_in_list() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         mockMvc
@@ -210,9 +698,103 @@ public class OrganizationControllerTest extends ControllerTest {
                 .andExpect(jsonPath("$[0].applications", hasSize(0)));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_page_should_follow_next_cursor_until_exhausted() throws Exception {
+        Organization first = organizationRepository.save(Organization.builder().name("first").vatNumber("000000001").build());
+        Organization second = organizationRepository.save(Organization.builder().name("second").vatNumber("000000002").build());
+        Organization third = organizationRepository.save(Organization.builder().name("third").vatNumber("000000003").build());
+        MvcResult result = mockMvc
+                .perform(get("/organization/_page").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.organizations", hasSize(2)))
+                .andExpect(jsonPath("$.organizations[0].id", equalTo((int) first.getId())))
+                .andExpect(jsonPath("$.organizations[1].id", equalTo((int) second.getId())))
+                .andExpect(jsonPath("$.next", notNullValue()))
+                .andReturn();
+        String next = objectMapper.readTree(result.getResponse().getContentAsString()).get("next").asText();
+        mockMvc
+                .perform(get("/organization/_page").param("limit", "2").param("next", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.organizations", hasSize(1)))
+                .andExpect(jsonPath("$.organizations[0].id", equalTo((int) third.getId())))
+                .andExpect(jsonPath("$.organizations[0].applications", hasSize(0)))
+                .andExpect(jsonPath("$.next", nullValue()));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_page_invalid_cursor_should_return_bad_request() throws Exception {
+        mockMvc
+                .perform(get("/organization/_page").param("next", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_page_invalid_limit_should_return_bad_request() throws Exception {
+        mockMvc
+                .perform(get("/organization/_page").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_stream_should_return_all_entities() throws Exception {
+        Organization first = organizationRepository.save(Organization.builder().name("first").vatNumber("000000001").build());
+        Organization second = organizationRepository.save(Organization.builder().name("second").vatNumber("000000002").build());
+        MvcResult result = mockMvc
+                .perform(get("/organization/_stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", equalTo((int) first.getId())))
+                .andExpect(jsonPath("$[1].id", equalTo((int) second.getId())));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_stream_should_continue_past_entities_deleted_while_reading() throws Exception {
+        Organization first = organizationRepository.save(Organization.builder().name("first").vatNumber("000000001").build());
+        Organization second = organizationRepository.save(Organization.builder().name("second").vatNumber("000000002").build());
+        Organization third = organizationRepository.save(Organization.builder().name("third").vatNumber("000000003").build());
+        TransactionTemplate deleteTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        deleteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicBoolean deleted = new AtomicBoolean();
+        OrganizationRepository repository = mock(OrganizationRepository.class, AdditionalAnswers.delegatesTo(organizationRepository));
+        doAnswer(invocation -> {
+            if (deleted.compareAndSet(false, true)) {
+                deleteTransaction.execute(status -> {
+                    organizationRepository.deleteById(second.getId());
+                    return null;
+                });
+            }
+            return organizationRepository.findAllByIdInOrderByIdAsc(invocation.getArgument(0));
+        }).when(repository).findAllByIdInOrderByIdAsc(anyCollection());
+        Object target = AopTestUtils.getTargetObject(organizationService);
+        ReflectionTestUtils.setField(target, "organizationRepository", repository);
+        try {
+            MvcResult result = mockMvc
+                    .perform(get("/organization/_stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc
+                    .perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].id", equalTo((int) first.getId())))
+                    .andExpect(jsonPath("$[1].id", equalTo((int) third.getId())));
+        } finally {
+            ReflectionTestUtils.setField(target, "organizationRepository", organizationRepository);
+        }
+    }
+
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_existing_entity_should_pass() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         mockMvc
@@ -228,7 +810,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void get_not_existing_entity_should_return_not_found() throws Exception {
         mockMvc
                 .perform(
@@ -236,9 +818,134 @@ public class OrganizationControllerTest extends ControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    private String adminToken() throws Exception {
+        MvcResult result = mockMvc
+                .perform(post("/token").with(httpBasic("admin", "admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType", equalTo("Bearer")))
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    @Test
+    public void admin_token_should_authenticate_requests() throws Exception {
+        String token = adminToken();
+        long hits = verifiedCredentialsCache.hitCount();
+        mockMvc
+                .perform(get("/organization").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get("/token").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sub", equalTo("admin")))
+                .andExpect(jsonPath("$.typ", equalTo("admin")));
+        assertThat(verifiedCredentialsCache.hitCount()).isEqualTo(hits);
+    }
+
+    @Test
+    public void revoked_token_should_return_unauthorized() throws Exception {
+        String token = adminToken();
+        mockMvc
+                .perform(delete("/token").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get("/organization").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string("WWW-Authenticate", startsWith("Bearer")));
+    }
+
+    @Test
+    public void tampered_token_should_return_unauthorized() throws Exception {
+        String token = adminToken();
+        String[] parts = token.split("\\.");
+        String claims = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8).replace("\"admin\"", "\"other\"");
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+        mockMvc
+                .perform(get("/organization").header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void token_signed_with_rotated_key_should_pass() throws Exception {
+        TokenProperties previous = new TokenProperties();
+        previous.setKeys(tokenProperties.getKeys());
+        previous.setActiveKey("k0");
+        String token = new TokenService(previous, new TokenRevocationList(), objectMapper)
+                .issue(TokenClaims.Type.admin, "admin", null, null, Collections.emptyList())
+                .getAccessToken();
+        mockMvc
+                .perform(get("/organization").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void token_signed_with_unknown_key_should_return_unauthorized() throws Exception {
+        TokenProperties unknown = new TokenProperties();
+        unknown.setKeys(Collections.singletonMap("kx", Base64.getEncoder().encodeToString(new byte[32])));
+        unknown.setActiveKey("kx");
+        String token = new TokenService(unknown, new TokenRevocationList(), objectMapper)
+                .issue(TokenClaims.Type.admin, "admin", null, null, Collections.emptyList())
+                .getAccessToken();
+        mockMvc
+                .perform(get("/organization").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void token_service_without_keys_should_fail() {
+        TokenProperties none = new TokenProperties();
+        assertThatThrownBy(() -> new TokenService(none, new TokenRevocationList(), objectMapper))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no signing key configured");
+    }
+
+    @Test
+    public void admin_credentials_should_be_verified_once() throws Exception {
+        verifiedCredentialsCache.invalidateAll();
+        long hits = verifiedCredentialsCache.hitCount();
+        mockMvc.perform(get("/organization").with(httpBasic("admin", "admin"))).andExpect(status().isOk());
+        mockMvc.perform(get("/organization").with(httpBasic("admin", "admin"))).andExpect(status().isOk());
+        assertThat(verifiedCredentialsCache.hitCount() - hits).isEqualTo(1);
+    }
+
+    @Test
+    public void wrong_admin_credentials_should_not_be_cached() throws Exception {
+        verifiedCredentialsCache.invalidateAll();
+        long hits = verifiedCredentialsCache.hitCount();
+        mockMvc.perform(get("/organization").with(httpBasic("admin", "nimda"))).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/organization").with(httpBasic("admin", "nimda"))).andExpect(status().isUnauthorized());
+        assertThat(verifiedCredentialsCache.hitCount()).isEqualTo(hits);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void prometheus_should_expose_service_and_pool_metrics() throws Exception {
+        mockMvc.perform(get("/organization/" + 0)).andExpect(status().isNotFound());
+        mockMvc
+                .perform(
+                        get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("service_exceptions_total{application=\"UserService\",cause=\"EntityNotFoundException\",exception=\"ReadOrganizationException\",}")))
+                .andExpect(content().string(containsString("service_calls_seconds{application=\"UserService\",class=\"OrganizationService\",exception=\"ReadOrganizationException\",method=\"readOrganization\",quantile=\"0.99\",}")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total")))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"UserService\",cache=\"credentials\"")))
+                .andExpect(content().string(containsString("jvm_gc_memory_allocated_bytes_total")));
+    }
+
     @Test
-    @Override
     @WithMockUser
+    public void prometheus_should_require_admin() throws Exception {
+        mockMvc
+                .perform(
+                        get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
     public void post_valid_entity_should_pass() throws Exception {
         Organization organization = buildTestOrganization();
         CreateOrganizationRequest request = CreateOrganizationRequest
@@ -258,7 +965,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void put_valid_entity_should_pass() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         UpdateOrganizationRequest request = UpdateOrganizationRequest
@@ -281,7 +988,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void put_not_existing_entity_should_return_not_found() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         UpdateOrganizationRequest request = UpdateOrganizationRequest
@@ -299,7 +1006,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void delete_existing_entity_should_pass() throws Exception {
         Organization organization = organizationRepository.save(buildTestOrganization());
         mockMvc
@@ -311,7 +1018,7 @@ public class OrganizationControllerTest extends ControllerTest {
 
     @Test
     @Override
-    @WithMockUser
+    @WithMockUser(roles = "ADMIN")
     public void delete_not_existing_entity_should_return_not_found() throws Exception {
         mockMvc
                 .perform(
@@ -319,8 +1026,194 @@ public class OrganizationControllerTest extends ControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_should_hide_organization_until_purged() throws Exception {
+        Organization organization = saveTestOrganizationWithUsers(2, 3);
+        mockMvc.perform(get("/organization/" + organization.getId())).andExpect(status().isOk());
+        mockMvc
+                .perform(
+                        delete("/organization/" + organization.getId()))
+                .andExpect(status().isOk());
+        assertThat(applicationRepository.count()).isZero();
+        assertThat(organizationRepository.count()).isZero();
+        assertThat(userRepository.count()).isEqualTo(6);
+        assertThat(roleRepository.count()).isEqualTo(4);
+        mockMvc.perform(get("/organization/" + organization.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(get("/organization/" + organization.getId() + "/application")).andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(0)));
+        assertThat(outboxEventRepository.findAll())
+                .extracting(OutboxEvent::getAggregateType, OutboxEvent::getType)
+                .containsExactlyInAnyOrder(
+                        tuple(AggregateType.APPLICATION, ChangeType.DELETED),
+                        tuple(AggregateType.APPLICATION, ChangeType.DELETED),
+                        tuple(AggregateType.ORGANIZATION, ChangeType.DELETED));
+        List<OrganizationDeletion> deletions = purgeWorker.purge();
+        assertThat(deletions).extracting(OrganizationDeletion::getOrganizationId).containsExactly(organization.getId());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!deletions.get(0).isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(deletions.get(0).getStatus()).isEqualTo(OrganizationDeletion.Status.COMPLETED);
+        assertThat(userRepository.count()).isZero();
+        assertThat(roleRepository.count()).isZero();
+        assertThat(organizationRepository.findDeletedIds(PageRequest.of(0, 10))).isEmpty();
+        mockMvc
+                .perform(
+                        post("/organization")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateOrganizationRequest.builder().name(organization.getName()).vatNumber(organization.getVatNumber()).build())))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_should_release_vat_number_until_purged() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        mockMvc
+                .perform(
+                        delete("/organization/" + organization.getId()))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(
+                        post("/organization")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateOrganizationRequest.builder().name(organization.getName()).vatNumber(organization.getVatNumber()).build())))
+                .andExpect(status().isCreated());
+        assertThat(organizationRepository.findDeletedIds(PageRequest.of(0, 10))).containsExactly(organization.getId());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_async_should_return_accepted_and_track_deletion() throws Exception {
+        Organization organization = saveTestOrganizationWithUsers(2, 3);
+        String location = mockMvc
+                .perform(
+                        delete("/organization/" + organization.getId())
+                                .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("location", new MatchesPattern(Pattern.compile("^http://.+/organization/_deletion/[0-9a-f-]{36}$"))))
+                .andExpect(jsonPath("$.organizationId", equalTo((int) organization.getId())))
+                .andReturn()
+                .getResponse()
+                .getHeader("location");
+        long deadline = System.currentTimeMillis() + 5000;
+        String status;
+        do {
+            Thread.sleep(10);
+            status = objectMapper.readTree(mockMvc
+                    .perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString()).get("status").asText();
+        } while (!"COMPLETED".equals(status) && !"FAILED".equals(status) && System.currentTimeMillis() < deadline);
+        mockMvc
+                .perform(get(location))
+                .andExpect(jsonPath("$.status", equalTo("COMPLETED")))
+                .andExpect(jsonPath("$.users", equalTo(6)))
+                .andExpect(jsonPath("$.roles", equalTo(4)))
+                .andExpect(jsonPath("$.applications", equalTo(2)));
+        assertThat(organizationRepository.existsById(organization.getId())).isFalse();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void delete_async_not_existing_entity_should_return_not_found() throws Exception {
+        mockMvc
+                .perform(
+                        delete("/organization/" + 0)
+                                .param("async", "true"))
+                .andExpect(status().isNotFound());
+        mockMvc
+                .perform(get("/organization/_deletion/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void writes_should_append_change_events_in_order() throws Exception {
+        mockMvc
+                .perform(
+                        post("/organization")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateOrganizationRequest.builder().name("enginious").vatNumber("123456789").build())))
+                .andExpect(status().isCreated());
+        long organizationId = organizationRepository.findAllByOrderByIdAsc().get(0).getId();
+        mockMvc
+                .perform(
+                        put("/organization/" + organizationId)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateOrganizationRequest.builder().name("renamed").vatNumber("987654321").build())))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(
+                        delete("/organization/" + organizationId))
+                .andExpect(status().isOk());
+        List<OutboxEvent> events = outboxEventRepository.findAll().stream().sorted(Comparator.comparingLong(OutboxEvent::getId)).collect(Collectors.toList());
+        assertThat(events).extracting(OutboxEvent::getType).containsExactly(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED);
+        assertThat(events).extracting(OutboxEvent::getAggregateVersion).containsExactly(0L, 1L, 2L);
+        assertThat(events).allMatch(event -> event.getAggregateType() == AggregateType.ORGANIZATION && event.getAggregateId() == organizationId);
+        assertThat(objectMapper.readTree(events.get(1).getPayload()).get("name").asText()).isEqualTo("renamed");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void failed_write_should_not_append_change_event() throws Exception {
+        Organization organization = organizationRepository.save(buildTestOrganization());
+        mockMvc
+                .perform(
+                        post("/organization")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(CreateOrganizationRequest.builder().name("duplicate").vatNumber(organization.getVatNumber()).build())))
+                .andExpect(status().isBadRequest());
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void bulk_create_should_append_one_event_per_created_row() throws Exception {
+        String body = json(CreateOrganizationRequest.builder().name("first").vatNumber("000000001").build()) + "\n"
+                + json(CreateOrganizationRequest.builder().name("x").vatNumber("000000002").build()) + "\n"
+                + json(CreateOrganizationRequest.builder().name("third").vatNumber("000000003").build()) + "\n";
+        mockMvc
+                .perform(
+                        post("/organization/_bulk")
+                                .contentType(OrganizationController.APPLICATION_NDJSON_VALUE)
+                                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", equalTo(2)));
+        assertThat(outboxEventRepository.findAll()).extracting(OutboxEvent::getType).containsOnly(ChangeType.CREATED).hasSize(2);
+    }
+
+    @Test
+    public void relay_should_publish_and_remove_all_events() throws Exception {
+        IntStream.range(0, 3).forEach(i -> transactionTemplate.execute(status -> saveTestOrganizationWithApplications(i, 0)));
+        outboxEventRepository.saveAll(organizationRepository
+                .findAllByOrderByIdAsc()
+                .stream()
+                .map(organization -> OutboxEvent
+                        .builder()
+                        .aggregateType(AggregateType.ORGANIZATION)
+                        .aggregateId(organization.getId())
+                        .organizationId(organization.getId())
+                        .type(ChangeType.CREATED)
+                        .payload("{}")
+                        .build())
+                .collect(Collectors.toList()));
+        double published = meterRegistry.get("outbox.events.published").counter().count();
+        assertThat(outboxRelay.relay()).isEqualTo(3);
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(meterRegistry.get("outbox.events.published").counter().count()).isEqualTo(published + 3);
+        assertThat(outboxRelay.relay()).isZero();
+    }
+
     @Override
     protected void doCleanup() {
+        purgeDeleted();
+        outboxEventRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        applicationRepository.deleteAll();
         organizationRepository.deleteAll();
     }
 }
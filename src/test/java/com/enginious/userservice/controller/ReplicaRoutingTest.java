@@ -0,0 +1,128 @@
+package com.enginious.userservice.controller;
+
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.service.organization.dto.UpdateOrganizationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the application with a replica that is a database of its own, migrated by Flyway but never written by the
+ * application, so that a read served by the primary, or a write sent to the replica, shows up in the responses.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "datasource.replica.jdbc-url=" + ReplicaRoutingTest.REPLICA_URL,
+        "datasource.replica.username=sa",
+        "datasource.replica.pool-name=replica",
+        "datasource.replica.maximum-pool-size=2",
+        "datasource.replica.minimum-idle=1",
+        "datasource.replica.read-only=true"
+})
+public class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MYSQL;DB_CLOSE_DELAY=-1";
+
+    private static final long REPLICATED_ID = 900_000_001L;
+
+    private static JdbcTemplate replica;
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeAll
+    public static void migrateReplica() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        replica.update("delete from organization");
+        organizationRepository.deleteAll();
+    }
+
+    private long connectionUsages(String pool) {
+        return (long) meterRegistry.get("datasource.connections.acquired").tag("pool", pool).functionCounter().count();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void reads_should_run_on_replica() throws Exception {
+        organizationRepository.save(Organization.builder().name("enginious").vatNumber("123456789").build());
+        replica.update("insert into organization (id, addedAt, name, vatNumber, version) values (?, current_timestamp, ?, ?, 0)", REPLICATED_ID, "replicated", "987654321");
+        long primary = connectionUsages("primary");
+        long replicaUsages = connectionUsages("replica");
+        mockMvc
+                .perform(get("/organization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", equalTo("replicated")));
+        assertThat(connectionUsages("replica")).isGreaterThan(replicaUsages);
+        assertThat(connectionUsages("primary")).isEqualTo(primary);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void writes_should_run_on_primary() throws Exception {
+        Organization organization = organizationRepository.save(Organization.builder().name("enginious").vatNumber("123456789").build());
+        mockMvc
+                .perform(
+                        put("/organization/" + organization.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(UpdateOrganizationRequest.builder().name("renamed").vatNumber("987654321").build())))
+                .andExpect(status().isOk());
+        assertThat(new JdbcTemplate(dataSource).queryForObject("select name from organization where id = ?", String.class, organization.getId())).isEqualTo("renamed");
+        assertThat(replica.queryForObject("select count(*) from organization", Long.class)).isZero();
+    }
+}
@@ -0,0 +1,514 @@
+package com.enginious.userservice.controller;
+
+import com.enginious.userservice.model.Application;
+import com.enginious.userservice.model.Organization;
+import com.enginious.userservice.model.User;
+import com.enginious.userservice.model.enums.Role;
+import com.enginious.userservice.repository.ApplicationRepository;
+import com.enginious.userservice.repository.OrganizationRepository;
+import com.enginious.userservice.repository.RoleRepository;
+import com.enginious.userservice.repository.UserRepository;
+import com.enginious.userservice.service.application.ApplicationCredentialCache;
+import com.enginious.userservice.service.user.UserService;
+import com.enginious.userservice.service.user.dto.CreateUserRequest;
+import com.enginious.userservice.service.user.dto.LoginRequest;
+import com.enginious.userservice.service.user.dto.UpdateUserRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.hamcrest.text.MatchesPattern;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Slf4j
+public class UserControllerTest extends ControllerTest {
+
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ApplicationCredentialCache applicationCredentialCache;
+
+    private Application saveTestApplication() {
+        return applicationRepository.save(Application
+                .builder()
+                .name("UserService")
+                .uuid(UUID.randomUUID().toString())
+                .secret("secret")
+                .role(Role.USER)
+                .organization(organizationRepository.save(Organization
+                        .builder()
+                        .name("enginious")
+                        .vatNumber("123456789")
+                        .build()))
+                .build());
+    }
+
+    private User saveTestUser(Application application, boolean enabled) throws Exception {
+        return userService.createUser(CreateUserRequest
+                        .builder()
+                        .username("user")
+                        .password(PASSWORD)
+                        .enabled(enabled)
+                        .roles(new HashSet<>(Arrays.asList("reader", "writer")))
+                        .build(),
+                application.getId(),
+                application.getOrganization().getId());
+    }
+
+    private static RequestPostProcessor asApplication(Application application) {
+        return httpBasic(application.getUuid(), application.getSecret());
+    }
+
+    private String path(Application application) {
+        return "/organization/" + application.getOrganization().getId() + "/application/" + application.getId() + "/user";
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void get_no_entities_in_table_should_return_empty_list() throws Exception {
+        mockMvc
+                .perform(get("/organization/1/application/1/user"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void get_one_entity_in_table_should_return_one_element_in_list() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(get(path(application)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", equalTo((int) user.getId())))
+                .andExpect(jsonPath("$[0].username", equalTo(user.getUsername())))
+                .andExpect(jsonPath("$[0].roles", hasSize(2)))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void get_existing_entity_should_pass() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", equalTo((int) user.getId())))
+                .andExpect(jsonPath("$.username", equalTo(user.getUsername())))
+                .andExpect(jsonPath("$.enabled", equalTo(true)))
+                .andExpect(jsonPath("$.roles[*].name", containsInAnyOrder("reader", "writer")))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.application").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_user_of_deleted_application_should_return_not_found() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(delete("/organization/" + application.getOrganization().getId() + "/application/" + application.getId()))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc
+                .perform(get(path(application)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void get_not_existing_entity_should_return_not_found() throws Exception {
+        Application application = saveTestApplication();
+        mockMvc
+                .perform(get(path(application) + "/" + 0))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void get_user_of_other_organization_should_return_not_found() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(get("/organization/0/application/" + application.getId() + "/user/" + user.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void role_check_should_be_served_from_cache() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId() + "/role/reader"))
+                .andExpect(status().isNoContent());
+        long queries = countQueries(() -> {
+            mockMvc
+                    .perform(get(path(application) + "/" + user.getId() + "/role/writer"))
+                    .andExpect(status().isNoContent());
+            mockMvc
+                    .perform(get(path(application) + "/" + user.getId() + "/role/admin"))
+                    .andExpect(status().isNotFound());
+        });
+        assertThat(queries).isZero();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void role_check_should_reflect_role_changes() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId() + "/role/writer"))
+                .andExpect(status().isNoContent());
+        mockMvc
+                .perform(
+                        put(path(application) + "/" + user.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(UpdateUserRequest
+                                        .builder()
+                                        .enabled(true)
+                                        .roles(new HashSet<>(Arrays.asList("reader", "auditor")))
+                                        .build())))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId() + "/role/writer"))
+                .andExpect(status().isNotFound());
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId() + "/role/auditor"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void role_check_of_user_of_other_organization_should_return_not_found() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(get(path(application) + "/" + user.getId() + "/role/reader"))
+                .andExpect(status().isNoContent());
+        mockMvc
+                .perform(get("/organization/0/application/" + application.getId() + "/user/" + user.getId() + "/role/reader"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", equalTo("No entity found")));
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void post_valid_entity_should_pass() throws Exception {
+        Application application = saveTestApplication();
+        CreateUserRequest request = CreateUserRequest
+                .builder()
+                .username("user")
+                .password(PASSWORD)
+                .enabled(true)
+                .roles(Collections.singleton("reader"))
+                .build();
+        mockMvc
+                .perform(
+                        post(path(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("location", new MatchesPattern(Pattern.compile("^http://.+/user/\\d+$"))));
+        User user = userRepository.findAllByApplicationId(application.getId()).get(0);
+        assertThat(passwordEncoder.matches(PASSWORD, user.getPassword())).isTrue();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_existing_roles_should_be_reused() throws Exception {
+        Application application = saveTestApplication();
+        saveTestUser(application, true);
+        CreateUserRequest request = CreateUserRequest
+                .builder()
+                .username("other")
+                .password(PASSWORD)
+                .enabled(true)
+                .roles(new HashSet<>(Arrays.asList("writer", "admin")))
+                .build();
+        mockMvc
+                .perform(
+                        post(path(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isCreated());
+        assertThat(roleRepository.findAll()).hasSize(3);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_duplicate_username_should_return_bad_request() throws Exception {
+        Application application = saveTestApplication();
+        saveTestUser(application, true);
+        CreateUserRequest request = CreateUserRequest
+                .builder()
+                .username("user")
+                .password(PASSWORD)
+                .roles(Collections.emptySet())
+                .build();
+        mockMvc
+                .perform(
+                        post(path(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", equalTo("Constraint violation")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void post_short_password_should_return_bad_request() throws Exception {
+        Application application = saveTestApplication();
+        CreateUserRequest request = CreateUserRequest
+                .builder()
+                .username("user")
+                .password("short")
+                .roles(Collections.emptySet())
+                .build();
+        mockMvc
+                .perform(
+                        post(path(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0]", startsWith("password")));
+    }
+
+    @Test
+    public void login_valid_credentials_should_return_user_with_roles() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        applicationCredentialCache.get(application.getUuid());
+        long queries = countQueries(() -> mockMvc
+                .perform(
+                        post(path(application) + "/_login")
+                                .with(asApplication(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(LoginRequest.builder().username("user").password(PASSWORD).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", equalTo((int) user.getId())))
+                .andExpect(jsonPath("$.roles[*].name", containsInAnyOrder("reader", "writer"))));
+        assertThat(queries).isEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void login_as_admin_should_return_forbidden() throws Exception {
+        Application application = saveTestApplication();
+        saveTestUser(application, true);
+        for (String endpoint : Arrays.asList("/_login", "/_token")) {
+            mockMvc
+                    .perform(
+                            post(path(application) + endpoint)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(json(LoginRequest.builder().username("user").password(PASSWORD).build())))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    public void login_as_other_application_should_return_forbidden() throws Exception {
+        Application application = saveTestApplication();
+        saveTestUser(application, true);
+        Application other = applicationRepository.save(Application
+                .builder()
+                .name("OtherService")
+                .uuid(UUID.randomUUID().toString())
+                .secret("secret")
+                .role(Role.USER)
+                .organization(application.getOrganization())
+                .build());
+        for (String endpoint : Arrays.asList("/_login", "/_token")) {
+            mockMvc
+                    .perform(
+                            post(path(application) + endpoint)
+                                    .with(asApplication(other))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(json(LoginRequest.builder().username("user").password(PASSWORD).build())))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    public void login_wrong_password_should_return_unauthorized() throws Exception {
+        Application application = saveTestApplication();
+        saveTestUser(application, true);
+        mockMvc
+                .perform(
+                        post(path(application) + "/_login")
+                                .with(asApplication(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(LoginRequest.builder().username("user").password("drowssap").build())))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void login_unknown_user_should_return_unauthorized() throws Exception {
+        Application application = saveTestApplication();
+        mockMvc
+                .perform(
+                        post(path(application) + "/_login")
+                                .with(asApplication(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(LoginRequest.builder().username("nobody").password(PASSWORD).build())))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void login_disabled_user_should_return_unauthorized() throws Exception {
+        Application application = saveTestApplication();
+        saveTestUser(application, false);
+        mockMvc
+                .perform(
+                        post(path(application) + "/_login")
+                                .with(asApplication(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(LoginRequest.builder().username("user").password(PASSWORD).build())))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void user_token_should_only_grant_token_endpoints() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        String response = mockMvc
+                .perform(
+                        post(path(application) + "/_token")
+                                .with(asApplication(application))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(LoginRequest.builder().username("user").password(PASSWORD).build())))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String token = objectMapper.readTree(response).get("accessToken").asText();
+        mockMvc
+                .perform(get("/token").with(anonymous()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sub", equalTo(String.valueOf(user.getId()))))
+                .andExpect(jsonPath("$.typ", equalTo("user")))
+                .andExpect(jsonPath("$.roles", contains("reader", "writer")));
+        mockMvc
+                .perform(get(path(application)).with(anonymous()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void put_valid_entity_should_pass() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        UpdateUserRequest request = UpdateUserRequest
+                .builder()
+                .password("new-password")
+                .enabled(false)
+                .roles(Collections.singleton("reader"))
+                .build();
+        mockMvc
+                .perform(
+                        put(path(application) + "/" + user.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isOk());
+        User updated = userService.readUser(user.getId(), application.getId(), application.getOrganization().getId());
+        assertThat(updated.isEnabled()).isFalse();
+        assertThat(updated.getRoles()).extracting(com.enginious.userservice.model.Role::getName).containsExactly("reader");
+        assertThat(passwordEncoder.matches("new-password", updated.getPassword())).isTrue();
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void put_not_existing_entity_should_return_not_found() throws Exception {
+        Application application = saveTestApplication();
+        UpdateUserRequest request = UpdateUserRequest
+                .builder()
+                .enabled(true)
+                .roles(Collections.emptySet())
+                .build();
+        mockMvc
+                .perform(
+                        put(path(application) + "/" + 0)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(request)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void delete_existing_entity_should_pass() throws Exception {
+        Application application = saveTestApplication();
+        User user = saveTestUser(application, true);
+        mockMvc
+                .perform(
+                        delete(path(application) + "/" + user.getId()))
+                .andExpect(status().isOk());
+        assertThat(userRepository.findById(user.getId()).isPresent()).isFalse();
+    }
+
+    @Test
+    @Override
+    @WithMockUser(roles = "ADMIN")
+    public void delete_not_existing_entity_should_return_not_found() throws Exception {
+        Application application = saveTestApplication();
+        mockMvc
+                .perform(
+                        delete(path(application) + "/" + 0))
+                .andExpect(status().isNotFound());
+    }
+
+    @Override
+    protected void doCleanup() {
+        purgeDeleted();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        applicationRepository.deleteAll();
+        organizationRepository.deleteAll();
+    }
+}